@@ -16,6 +16,8 @@
 package com.adobe.cq.commerce.core.components.client;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
@@ -70,6 +72,44 @@ public interface MagentoGraphqlClient {
      */
     GraphqlResponse<Query, Error> execute(String query, HttpMethod httpMethod);
 
+    /**
+     * Executes the given Magento query asynchronously. This method will use the default HTTP method defined in the OSGi configuration of
+     * the underlying {@link GraphqlClient}. The query is executed by a bounded thread pool, so callers can start several independent
+     * queries and only block when they need the response.
+     * <p>
+     * The default implementation executes the query synchronously and returns a completed future.
+     *
+     * @param query The GraphQL query.
+     * @return A future of the GraphQL response.
+     */
+    default CompletableFuture<GraphqlResponse<Query, Error>> executeAsync(String query) {
+        return CompletableFuture.completedFuture(execute(query));
+    }
+
+    /**
+     * Executes the given Magento query asynchronously using the given <code>httpMethod</code> to fetch the data.
+     * <p>
+     * The default implementation executes the query synchronously and returns a completed future.
+     *
+     * @param query The GraphQL query.
+     * @param httpMethod The HTTP method that will be used to fetch the data.
+     * @return A future of the GraphQL response.
+     */
+    default CompletableFuture<GraphqlResponse<Query, Error>> executeAsync(String query, HttpMethod httpMethod) {
+        return CompletableFuture.completedFuture(execute(query, httpMethod));
+    }
+
+    /**
+     * Registers a Magento query to be fetched together with other queries registered during the same request. When query batching is
+     * enabled in the context configuration, all registered queries are merged into a single GraphQL request which is sent the first
+     * time any of them is executed with {@link #execute(String)}. The query supplier is only called at that time, so that the query
+     * includes all customizations made after it was registered. When query batching is not enabled, this method does nothing and the
+     * query supplier is not called.
+     *
+     * @param query A supplier of the GraphQL query.
+     */
+    default void registerQuery(Supplier<String> query) {}
+
     /**
      * Returns the complete configuration of the GraphQL client.
      *
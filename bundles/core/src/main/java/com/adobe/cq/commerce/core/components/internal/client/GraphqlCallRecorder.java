@@ -0,0 +1,127 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+
+/**
+ * Records the GraphQL queries executed by {@link MagentoGraphqlClientImpl} while rendering a request. The recorder is only active for
+ * requests it was started for with {@link #start(SlingHttpServletRequest)}. Queries may be executed asynchronously, so all counters are
+ * thread-safe.
+ * <p>
+ * As for the metrics of {@link GraphqlClientMetrics}, queries are either answered locally without calling the GraphQL client or passed to
+ * the client, which answers them either from its own cache or from the server.
+ */
+public class GraphqlCallRecorder {
+
+    private static final String REQUEST_ATTRIBUTE = GraphqlCallRecorder.class.getName();
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicInteger localQueries = new AtomicInteger();
+    private final AtomicLong queryBytes = new AtomicLong();
+    private final AtomicLong clientTime = new AtomicLong();
+
+    /**
+     * Starts recording the queries of the given request.
+     *
+     * @param request the current request
+     * @return the recorder of the request, or {@code null} if the request is already recorded
+     */
+    public static GraphqlCallRecorder start(SlingHttpServletRequest request) {
+        if (request.getAttribute(REQUEST_ATTRIBUTE) != null) {
+            return null;
+        }
+        GraphqlCallRecorder recorder = new GraphqlCallRecorder();
+        request.setAttribute(REQUEST_ATTRIBUTE, recorder);
+        return recorder;
+    }
+
+    /**
+     * Returns the recorder of the given request.
+     *
+     * @param request the current request
+     * @return the recorder, or {@code null} if the queries of the request are not recorded
+     */
+    static GraphqlCallRecorder forRequest(SlingHttpServletRequest request) {
+        Object recorder = request.getAttribute(REQUEST_ATTRIBUTE);
+        return recorder instanceof GraphqlCallRecorder ? (GraphqlCallRecorder) recorder : null;
+    }
+
+    /**
+     * Records the execution of a query.
+     *
+     * @param query the query
+     * @param clientCalled false if the query was answered without calling the GraphQL client
+     * @param duration the time it took to execute the query in nanoseconds
+     */
+    public void record(String query, boolean clientCalled, long duration) {
+        queries.incrementAndGet();
+        if (query != null) {
+            queryBytes.addAndGet(query.getBytes(StandardCharsets.UTF_8).length);
+        }
+        if (clientCalled) {
+            clientTime.addAndGet(duration);
+        } else {
+            localQueries.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of queries executed
+     */
+    public int getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * @return the number of queries answered without calling the GraphQL client
+     */
+    public int getLocalQueries() {
+        return localQueries.get();
+    }
+
+    /**
+     * @return the number of queries passed to the GraphQL client, including the ones answered from its cache
+     */
+    public int getClientQueries() {
+        return queries.get() - localQueries.get();
+    }
+
+    /**
+     * @return the total size of the executed queries in bytes
+     */
+    public long getQueryBytes() {
+        return queryBytes.get();
+    }
+
+    /**
+     * @return the total time spent in calls to the GraphQL client in milliseconds
+     */
+    public long getClientTime() {
+        return TimeUnit.NANOSECONDS.toMillis(clientTime.get());
+    }
+
+    @Override
+    public String toString() {
+        return "queries=" + getQueries() + ";client=" + getClientQueries() + ";local=" + getLocalQueries() + ";bytes=" + getQueryBytes()
+            + ";time=" + getClientTime() + "ms";
+    }
+}
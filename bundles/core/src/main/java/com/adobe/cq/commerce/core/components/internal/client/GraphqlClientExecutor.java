@@ -0,0 +1,65 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.Designate;
+
+/**
+ * A bounded {@link Executor} used to run GraphQL queries asynchronously, for example with
+ * {@link com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient#executeAsync(String)}. When all threads are busy and the queue
+ * is full or the executor was shut down, tasks are executed by the calling thread.
+ */
+@Component(service = GraphqlClientExecutor.class)
+@Designate(ocd = GraphqlClientExecutorConfiguration.class)
+public class GraphqlClientExecutor implements Executor {
+
+    private ThreadPoolExecutor threadPool;
+
+    @Activate
+    protected void activate(GraphqlClientExecutorConfiguration configuration) {
+        int threadPoolSize = Math.max(1, configuration.threadPoolSize());
+        int queueSize = Math.max(1, configuration.queueSize());
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "cif-graphql-client-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        threadPool = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize),
+            threadFactory, (runnable, executor) -> runnable.run());
+        threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        threadPool.shutdown();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        threadPool.execute(command);
+    }
+}
@@ -0,0 +1,113 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.commons.metrics.MetricsService;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.graphql.client.HttpMethod;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+/**
+ * Records the metrics of the queries executed by {@link MagentoGraphqlClientImpl} with the Sling {@link MetricsService}, which exposes
+ * them with JMX. The metric names are prefixed with <code>cif.graphql.&lt;cache name&gt;.&lt;HTTP method&gt;</code>, the cache name being
+ * the resource type of the component that executed the query:
+ * <ul>
+ * <li><code>.time</code>: the time it took to execute the queries</li>
+ * <li><code>.local</code>: the queries answered without calling the GraphQL client, for example by a query batch</li>
+ * <li><code>.client</code>: the queries passed to the GraphQL client, which answers them either from its own cache or from the
+ * server</li>
+ * <li><code>.error.&lt;category&gt;</code>: the queries that returned errors, by the category of the first error</li>
+ * </ul>
+ * Queries that are slower than the configured threshold are logged with all their arguments removed.
+ */
+@Component(service = GraphqlClientMetrics.class)
+@Designate(ocd = GraphqlClientMetricsConfiguration.class)
+public class GraphqlClientMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphqlClientMetrics.class);
+    private static final String METRIC_PREFIX = "cif.graphql.";
+    private static final String UNKNOWN_ERROR_CATEGORY = "unknown";
+    private static final Pattern STRING_ARGUMENT = Pattern.compile("\"\"\"[\\s\\S]*?\"\"\"|\"(?:[^\"\\\\]|\\\\.)*\"");
+    private static final Pattern NUMBER_ARGUMENT = Pattern.compile("(?<=[:\\[,])\\s*-?\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?");
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private MetricsService metricsService;
+
+    private long slowQueryThreshold;
+
+    @Activate
+    @Modified
+    protected void activate(GraphqlClientMetricsConfiguration configuration) {
+        slowQueryThreshold = TimeUnit.MILLISECONDS.toNanos(Math.max(0, configuration.slowQueryThreshold()));
+    }
+
+    /**
+     * Records the execution of a query.
+     *
+     * @param cacheName the cache name of the client, usually the resource type of the component
+     * @param httpMethod the HTTP method the query was sent with
+     * @param clientCalled false if the query was answered without calling the GraphQL client
+     * @param response the response of the query, may be {@code null} if the query failed
+     * @param duration the time it took to execute the query in nanoseconds
+     * @param query the query
+     */
+    void record(String cacheName, HttpMethod httpMethod, boolean clientCalled, GraphqlResponse<Query, Error> response, long duration,
+        String query) {
+        if (metricsService != null) {
+            String prefix = METRIC_PREFIX + StringUtils.defaultIfEmpty(cacheName, "default") + "." + httpMethod + ".";
+            metricsService.timer(prefix + "time").update(duration, TimeUnit.NANOSECONDS);
+            metricsService.counter(prefix + (clientCalled ? "client" : "local")).increment();
+            if (response == null || CollectionUtils.isNotEmpty(response.getErrors())) {
+                String category = response != null ? response.getErrors().get(0).getCategory() : null;
+                metricsService.counter(prefix + "error." + StringUtils.defaultIfEmpty(category, UNKNOWN_ERROR_CATEGORY)).increment();
+            }
+        }
+
+        if (slowQueryThreshold > 0 && duration > slowQueryThreshold) {
+            LOGGER.warn("Slow query of {} took {}ms: {}", cacheName, TimeUnit.NANOSECONDS.toMillis(duration), getQueryShape(query));
+        }
+    }
+
+    /**
+     * Returns the shape of the given query, which is the query with all string and number arguments replaced by <code>?</code>.
+     *
+     * @param query the query
+     * @return the shape of the query
+     */
+    static String getQueryShape(String query) {
+        if (query == null) {
+            return null;
+        }
+        String shape = STRING_ARGUMENT.matcher(query).replaceAll("\"?\"");
+        return NUMBER_ARGUMENT.matcher(shape).replaceAll("?");
+    }
+}
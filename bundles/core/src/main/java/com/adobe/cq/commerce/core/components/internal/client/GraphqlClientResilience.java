@@ -0,0 +1,289 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Protects the rendering threads from a slow or failing Magento endpoint.
+ * <ul>
+ * <li>The last known good response of each query is kept and served when the query fails, when it exceeds the latency budget or when the
+ * endpoint is not called because of the circuit breaker.</li>
+ * <li>With stale-while-revalidate, last known good responses are served immediately and refreshed by a single background call once
+ * they are older than the refresh time.</li>
+ * <li>The circuit breaker stops calling an endpoint for a cool-down period after a number of consecutive failures. Afterwards a single
+ * call is let through to check if the endpoint has recovered.</li>
+ * </ul>
+ * Background refreshes are executed by the {@link GraphqlClientExecutor}. Queries with a latency budget are executed by a dedicated thread
+ * pool that never runs them on the calling thread, when all its threads are busy the last known good response is served immediately.
+ */
+@Component(service = GraphqlClientResilience.class)
+@Designate(ocd = GraphqlClientResilienceConfiguration.class)
+public class GraphqlClientResilience {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphqlClientResilience.class);
+
+    @Reference
+    private GraphqlClientExecutor executor;
+
+    private volatile Settings settings;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // the clock can be replaced in tests
+    LongSupplier clock = System::currentTimeMillis;
+
+    @Activate
+    @Modified
+    protected void activate(GraphqlClientResilienceConfiguration configuration) {
+        Settings previous = settings;
+        settings = new Settings(configuration);
+        circuitBreakers.clear();
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        Settings current = settings;
+        if (current != null) {
+            current.shutdown();
+        }
+    }
+
+    /**
+     * Executes the given query or serves its last known good response. Mutations are always executed as they are.
+     *
+     * @param clientKey a key identifying the endpoint, the HTTP headers and the HTTP method of the call
+     * @param query the GraphQL query
+     * @param call the call executing the query
+     * @return the response
+     */
+    GraphqlResponse<Query, Error> execute(String clientKey, String query, Supplier<GraphqlResponse<Query, Error>> call) {
+        if (query.trim().startsWith("mutation")) {
+            // mutations are never served from or stored as last known good response, nor refreshed or abandoned
+            return call.get();
+        }
+
+        Settings current = settings;
+        String key = clientKey + ";" + query;
+        LastKnownGood lastKnownGood = current.responses != null ? current.responses.getIfPresent(key) : null;
+        CircuitBreaker circuitBreaker = current.failureThreshold > 0
+            ? circuitBreakers.computeIfAbsent(clientKey, k -> new CircuitBreaker(current))
+            : null;
+
+        if (lastKnownGood != null && current.refreshAfter > 0) {
+            if (clock.getAsLong() - lastKnownGood.fetched >= current.refreshAfter && refreshing.add(key)) {
+                LOGGER.debug("Serving stale response while refreshing it in the background");
+                executor.execute(() -> {
+                    try {
+                        if (circuitBreaker == null || circuitBreaker.allowRequest()) {
+                            fetch(current, key, call, circuitBreaker);
+                        }
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Failed to refresh stale response", e);
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                });
+            }
+            return lastKnownGood.response;
+        }
+
+        if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+            if (lastKnownGood != null) {
+                return lastKnownGood.response;
+            }
+            throw new IllegalStateException("GraphQL endpoint is not called during the cool-down period after it failed");
+        }
+
+        try {
+            if (lastKnownGood != null && current.budgetThreadPool != null) {
+                return fetchWithinBudget(current, key, call, circuitBreaker, lastKnownGood);
+            }
+            return fetch(current, key, call, circuitBreaker);
+        } catch (RuntimeException e) {
+            if (lastKnownGood != null) {
+                LOGGER.warn("Failed to execute query, serving last known good response", e);
+                return lastKnownGood.response;
+            }
+            throw e;
+        }
+    }
+
+    private GraphqlResponse<Query, Error> fetchWithinBudget(Settings current, String key, Supplier<GraphqlResponse<Query, Error>> call,
+        CircuitBreaker circuitBreaker, LastKnownGood lastKnownGood) {
+        CompletableFuture<GraphqlResponse<Query, Error>> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> fetch(current, key, call, circuitBreaker), current.budgetThreadPool);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("All threads for queries with a latency budget are busy, serving last known good response");
+            return lastKnownGood.response;
+        }
+        try {
+            return future.get(current.latencyBudget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Query exceeded the latency budget of {}ms, serving last known good response", current.latencyBudget);
+            return lastKnownGood.response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return lastKnownGood.response;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private GraphqlResponse<Query, Error> fetch(Settings current, String key, Supplier<GraphqlResponse<Query, Error>> call,
+        CircuitBreaker circuitBreaker) {
+        GraphqlResponse<Query, Error> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.failure();
+            }
+            throw e;
+        }
+
+        if (circuitBreaker != null) {
+            circuitBreaker.success();
+        }
+        if (current.responses != null && response != null && response.getData() != null && CollectionUtils.isEmpty(response
+            .getErrors())) {
+            current.responses.put(key, new LastKnownGood(response, clock.getAsLong()));
+        }
+        return response;
+    }
+
+    private static class Settings {
+        private final Cache<String, LastKnownGood> responses;
+        private final long refreshAfter;
+        private final long latencyBudget;
+        private final int failureThreshold;
+        private final long coolDown;
+        private final ThreadPoolExecutor budgetThreadPool;
+
+        private Settings(GraphqlClientResilienceConfiguration configuration) {
+            responses = configuration.cacheSize() > 0
+                ? CacheBuilder.newBuilder()
+                    .maximumSize(configuration.cacheSize())
+                    .expireAfterWrite(Math.max(0, configuration.maxStale()), TimeUnit.SECONDS)
+                    .build()
+                : null;
+            refreshAfter = TimeUnit.SECONDS.toMillis(Math.max(0, configuration.refreshAfter()));
+            latencyBudget = Math.max(0, configuration.latencyBudget());
+            failureThreshold = Math.max(0, configuration.failureThreshold());
+            coolDown = TimeUnit.SECONDS.toMillis(Math.max(0, configuration.coolDown()));
+            budgetThreadPool = responses != null && latencyBudget > 0 ? newBudgetThreadPool(configuration) : null;
+        }
+
+        private static ThreadPoolExecutor newBudgetThreadPool(GraphqlClientResilienceConfiguration configuration) {
+            int threadPoolSize = Math.max(1, configuration.latencyBudgetThreadPoolSize());
+            AtomicInteger threadCount = new AtomicInteger();
+            // without a queue, queries are rejected as soon as all threads are busy
+            ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "cif-graphql-budget-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+            threadPool.allowCoreThreadTimeOut(true);
+            return threadPool;
+        }
+
+        private void shutdown() {
+            if (budgetThreadPool != null) {
+                budgetThreadPool.shutdown();
+            }
+        }
+    }
+
+    private static class LastKnownGood {
+        private final GraphqlResponse<Query, Error> response;
+        private final long fetched;
+
+        private LastKnownGood(GraphqlResponse<Query, Error> response, long fetched) {
+            this.response = response;
+            this.fetched = fetched;
+        }
+    }
+
+    private class CircuitBreaker {
+        private final int failureThreshold;
+        private final long coolDown;
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicBoolean trial = new AtomicBoolean();
+        private volatile long openUntil;
+
+        private CircuitBreaker(Settings settings) {
+            this.failureThreshold = settings.failureThreshold;
+            this.coolDown = settings.coolDown;
+        }
+
+        private boolean allowRequest() {
+            long until = openUntil;
+            if (until == 0) {
+                return true;
+            }
+            // after the cool-down only a single call is let through until it succeeded
+            return clock.getAsLong() >= until && trial.compareAndSet(false, true);
+        }
+
+        private void success() {
+            failures.set(0);
+            openUntil = 0;
+            trial.set(false);
+        }
+
+        private void failure() {
+            if (failures.incrementAndGet() >= failureThreshold || trial.get()) {
+                LOGGER.warn("GraphQL endpoint failed {} times, not calling it for {}ms", failures.get(), coolDown);
+                openUntil = clock.getAsLong() + coolDown;
+                trial.set(false);
+            }
+        }
+    }
+}
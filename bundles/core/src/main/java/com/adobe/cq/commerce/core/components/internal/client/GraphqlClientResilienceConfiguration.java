@@ -0,0 +1,65 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+@ObjectClassDefinition(name = "CIF GraphQL Client Resilience Configuration")
+public @interface GraphqlClientResilienceConfiguration {
+
+    @AttributeDefinition(
+        name = "Cache size",
+        description = "The maximum number of last known good responses kept to be served when Magento is slow or unavailable. Set to 0 "
+            + "to disable stale responses and the latency budget.")
+    int cacheSize() default 0;
+
+    @AttributeDefinition(
+        name = "Max stale",
+        description = "The time in seconds a last known good response may be served after it was fetched.")
+    int maxStale() default 3600;
+
+    @AttributeDefinition(
+        name = "Refresh after",
+        description = "Enables stale-while-revalidate when greater than 0. Last known good responses younger than this number of seconds "
+            + "are served without calling Magento, older ones are served immediately while a single background refresh fetches them "
+            + "again.")
+    int refreshAfter() default 0;
+
+    @AttributeDefinition(
+        name = "Latency budget",
+        description = "The time in milliseconds a query may take before its last known good response is served instead. The query "
+            + "completes in the background and updates the response. Set to 0 to wait for all queries.")
+    int latencyBudget() default 0;
+
+    @AttributeDefinition(
+        name = "Latency budget thread pool size",
+        description = "The number of threads that execute queries with a latency budget. When all of them are busy, the last known good "
+            + "response is served immediately.")
+    int latencyBudgetThreadPoolSize() default 10;
+
+    @AttributeDefinition(
+        name = "Failure threshold",
+        description = "The number of consecutive failed calls after which an endpoint is not called anymore for the cool-down period. "
+            + "Set to 0 to disable the circuit breaker.")
+    int failureThreshold() default 0;
+
+    @AttributeDefinition(
+        name = "Cool-down",
+        description = "The time in seconds an endpoint is not called after it failed. Afterwards a single call is sent to check if the "
+            + "endpoint has recovered.")
+    int coolDown() default 30;
+}
@@ -0,0 +1,302 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+/**
+ * A request scoped batch of GraphQL queries. Queries registered with {@link #register(Supplier)} are kept pending until any query is
+ * executed with {@link #execute(String, Function)}. At that point the pending queries are generated, so that they include all
+ * customizations made after their registration, and merged into a single GraphQL document, where
+ * each root field gets a unique alias, and sent to Magento once. The response is then split again into one {@link Query} per registered
+ * query.
+ * <p>
+ * Only plain queries without variables, fragments or directives on the operation can be merged. If the merged query fails for any
+ * reason, batching is disabled for the rest of the request and the caller has to execute its query on its own.
+ */
+class GraphqlQueryBatch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphqlQueryBatch.class);
+    private static final String REQUEST_ATTRIBUTE = GraphqlQueryBatch.class.getName();
+    private static final String ALIAS_SEPARATOR = "__";
+
+    private final List<Supplier<String>> pendingQueries = new ArrayList<>();
+    private final Map<String, GraphqlResponse<Query, Error>> responses = new HashMap<>();
+    private boolean disabled;
+
+    /**
+     * Returns the batch of the given request for the given key, creating it if necessary. Clients must only share a batch when they
+     * send their queries to the same endpoint with the same HTTP headers, method and cache name.
+     *
+     * @param request the current request
+     * @param key a key identifying the GraphQL client configuration
+     * @return the request scoped batch
+     */
+    static GraphqlQueryBatch forRequest(SlingHttpServletRequest request, String key) {
+        @SuppressWarnings("unchecked")
+        Map<String, GraphqlQueryBatch> batches = (Map<String, GraphqlQueryBatch>) request.getAttribute(REQUEST_ATTRIBUTE);
+        if (batches == null) {
+            batches = new HashMap<>();
+            request.setAttribute(REQUEST_ATTRIBUTE, batches);
+        }
+        return batches.computeIfAbsent(key, k -> new GraphqlQueryBatch());
+    }
+
+    synchronized void register(Supplier<String> query) {
+        if (!disabled) {
+            pendingQueries.add(query);
+        }
+    }
+
+    /**
+     * Returns the response of the given query if it was already fetched as part of a batch or fetches it now together with all pending
+     * queries.
+     *
+     * @param query the query to execute
+     * @param executor a function executing a merged query
+     * @return the response of the given query or {@code null} if the query has to be executed on its own
+     */
+    synchronized GraphqlResponse<Query, Error> execute(String query, Function<String, GraphqlResponse<Query, Error>> executor) {
+        GraphqlResponse<Query, Error> response = responses.get(query);
+        if (response != null || disabled) {
+            return response;
+        }
+
+        Set<String> pending = new LinkedHashSet<>();
+        for (Supplier<String> pendingQuery : pendingQueries) {
+            String generatedQuery = pendingQuery.get();
+            if (generatedQuery == null || responses.containsKey(generatedQuery)) {
+                continue;
+            }
+            if (parse(generatedQuery, 0) == null) {
+                LOGGER.debug("Query cannot be batched: {}", generatedQuery);
+                continue;
+            }
+            pending.add(generatedQuery);
+        }
+        pendingQueries.clear();
+
+        List<String> queries = new ArrayList<>(pending);
+        if (!queries.contains(query)) {
+            if (queries.isEmpty() || parse(query, 0) == null) {
+                return null;
+            }
+            queries.add(query);
+        }
+        if (queries.size() == 1) {
+            return null;
+        }
+
+        StringBuilder mergedQuery = new StringBuilder("{");
+        List<List<Pair<String, String>>> aliases = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            ParsedQuery parsedQuery = parse(queries.get(i), i);
+            mergedQuery.append(parsedQuery.body).append(' ');
+            aliases.add(parsedQuery.aliases);
+        }
+        mergedQuery.append('}');
+
+        GraphqlResponse<Query, Error> mergedResponse;
+        try {
+            mergedResponse = executor.apply(mergedQuery.toString());
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to execute batch of {} queries, falling back to single queries", queries.size(), ex);
+            mergedResponse = null;
+        }
+
+        if (mergedResponse == null || mergedResponse.getData() == null || CollectionUtils.isNotEmpty(mergedResponse.getErrors())) {
+            LOGGER.debug("Batch of {} queries returned errors, falling back to single queries", queries.size());
+            disabled = true;
+            return null;
+        }
+
+        Query data = mergedResponse.getData();
+        for (int i = 0; i < queries.size(); i++) {
+            Query slice = new Query();
+            for (Pair<String, String> alias : aliases.get(i)) {
+                slice.responseData.put(alias.getRight(), data.responseData.get(alias.getLeft()));
+            }
+            GraphqlResponse<Query, Error> sliceResponse = new GraphqlResponse<>();
+            sliceResponse.setData(slice);
+            responses.put(queries.get(i), sliceResponse);
+        }
+
+        LOGGER.debug("Fetched {} queries in a single batch", queries.size());
+        return responses.get(query);
+    }
+
+    /**
+     * Parses the root fields of the given query and gives each of them a unique alias that is compatible with the alias convention of
+     * the generated Magento GraphQL classes (<code>field__alias</code>).
+     *
+     * @param query the query
+     * @param index the position of the query in the batch
+     * @return the aliased body of the query or {@code null} if the query cannot be batched
+     */
+    static ParsedQuery parse(String query, int index) {
+        if (query == null) {
+            return null;
+        }
+        String text = query.trim();
+        int start;
+        if (text.startsWith("{")) {
+            start = 0;
+        } else if (text.startsWith("query")) {
+            start = text.indexOf('{');
+            if (start < 0 || !text.substring(5, start).trim().matches("([_A-Za-z][_0-9A-Za-z]*)?")) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        ParsedQuery parsedQuery = new ParsedQuery();
+        StringBuilder body = new StringBuilder();
+        int depth = 0;
+        boolean directive = false;
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                int end = skipString(text, i);
+                if (end < 0) {
+                    return null;
+                }
+                body.append(text, i, end);
+                i = end;
+                continue;
+            }
+            if (c == '#') {
+                int end = text.indexOf('\n', i);
+                i = end < 0 ? text.length() : end;
+                continue;
+            }
+            if (c == '$') {
+                return null;
+            }
+            if (c == '{' || c == '(') {
+                depth++;
+            } else if (c == '}' || c == ')') {
+                if (depth == 0) {
+                    // end of the operation, fragment definitions or other operations are not supported
+                    if (c != '}' || !text.substring(i + 1).trim().isEmpty()) {
+                        return null;
+                    }
+                    parsedQuery.body = body.toString();
+                    return parsedQuery.aliases.isEmpty() ? null : parsedQuery;
+                }
+                depth--;
+            } else if (depth == 0 && c == '.') {
+                return null;
+            } else if (depth == 0 && c == '@') {
+                directive = true;
+            } else if (depth == 0 && isNameStart(c)) {
+                int end = skipName(text, i);
+                String name = text.substring(i, end);
+                if (directive) {
+                    directive = false;
+                    body.append(name);
+                    i = end;
+                    continue;
+                }
+                String key = name;
+                int next = skipWhitespace(text, end);
+                if (next < text.length() && text.charAt(next) == ':') {
+                    next = skipWhitespace(text, next + 1);
+                    if (next >= text.length() || !isNameStart(text.charAt(next))) {
+                        return null;
+                    }
+                    end = skipName(text, next);
+                    name = text.substring(next, end);
+                }
+                String alias = name + ALIAS_SEPARATOR + "b" + index + "_" + parsedQuery.aliases.size();
+                parsedQuery.aliases.add(new ImmutablePair<>(alias, key));
+                body.append(alias).append(':').append(name);
+                i = end;
+                continue;
+            }
+            body.append(c);
+            i++;
+        }
+        return null;
+    }
+
+    private static int skipString(String text, int start) {
+        if (text.startsWith("\"\"\"", start)) {
+            int end = text.indexOf("\"\"\"", start + 3);
+            return end < 0 ? -1 : end + 3;
+        }
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipName(String text, int start) {
+        int i = start;
+        while (i < text.length() && (isNameStart(text.charAt(i)) || Character.isDigit(text.charAt(i)))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String text, int start) {
+        int i = start;
+        while (i < text.length() && (Character.isWhitespace(text.charAt(i)) || text.charAt(i) == ',')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static class ParsedQuery {
+        private String body;
+        /**
+         * Pairs of the alias used in the merged query and the key of the field in the response of the original query.
+         */
+        private final List<Pair<String, String>> aliases = new ArrayList<>();
+
+        String getBody() {
+            return body;
+        }
+    }
+}
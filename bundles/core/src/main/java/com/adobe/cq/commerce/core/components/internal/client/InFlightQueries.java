@@ -0,0 +1,96 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+/**
+ * De-duplicates identical GraphQL queries that are executed concurrently. The first thread executing a query performs the HTTP call,
+ * all other threads executing the same query against the same endpoint with the same headers while the call is in flight wait for it
+ * and share its response.
+ * <p>
+ * Nothing is cached: once the call completed, the next execution of the same query results in a new call (which may of course still be
+ * answered from the cache of the underlying GraphQL client).
+ */
+class InFlightQueries {
+
+    static final InFlightQueries INSTANCE = new InFlightQueries();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InFlightQueries.class);
+
+    private final ConcurrentMap<List<String>, CompletableFuture<GraphqlResponse<Query, Error>>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the given call or waits for an identical call that is already in flight.
+     *
+     * @param clientKey a key identifying the endpoint, the HTTP method and the HTTP headers of the call
+     * @param query the GraphQL query
+     * @param call the call executing the query
+     * @return the response of the call
+     */
+    GraphqlResponse<Query, Error> execute(String clientKey, String query, Supplier<GraphqlResponse<Query, Error>> call) {
+        if (query.trim().startsWith("mutation")) {
+            return call.get();
+        }
+
+        List<String> key = Arrays.asList(clientKey, query);
+        CompletableFuture<GraphqlResponse<Query, Error>> future = new CompletableFuture<>();
+        CompletableFuture<GraphqlResponse<Query, Error>> inFlight = calls.putIfAbsent(key, future);
+
+        if (inFlight != null) {
+            LOGGER.debug("Waiting for identical query in flight: {}", query);
+            try {
+                return inFlight.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                if (ex.getCause() instanceof java.lang.Error) {
+                    throw (java.lang.Error) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+
+        try {
+            GraphqlResponse<Query, Error> response = call.get();
+            future.complete(response);
+            return response;
+        } catch (RuntimeException | java.lang.Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    int size() {
+        return calls.size();
+    }
+}
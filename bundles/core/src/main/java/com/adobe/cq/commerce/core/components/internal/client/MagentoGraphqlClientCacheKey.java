@@ -0,0 +1,46 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.graphql.client.GraphqlClientConfiguration;
+
+/**
+ * Computes keys for data that is cached across requests and depends on the Magento backend a {@link MagentoGraphqlClient} talks to.
+ */
+public final class MagentoGraphqlClientCacheKey {
+
+    private MagentoGraphqlClientCacheKey() {}
+
+    /**
+     * Returns a key identifying the GraphQL client, the endpoint and the HTTP headers of the given client. The headers include the
+     * Magento store, so data cached with this key is never shared between stores.
+     *
+     * @param magentoGraphqlClient the client
+     * @return the key or {@code null} if the configuration of the client is not known
+     */
+    public static String of(MagentoGraphqlClient magentoGraphqlClient) {
+        GraphqlClientConfiguration configuration = magentoGraphqlClient.getConfiguration();
+        if (configuration == null) {
+            return null;
+        }
+        Map<String, String> headers = magentoGraphqlClient.getHttpHeaders();
+        return configuration.identifier() + ";" + configuration.url() + ";" + (headers != null ? new TreeMap<>(headers) : "");
+    }
+}
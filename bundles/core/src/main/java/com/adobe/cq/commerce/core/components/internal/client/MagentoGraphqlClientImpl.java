@@ -26,6 +26,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -39,6 +44,7 @@ import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.injectorspecific.InjectionStrategy;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.ScriptVariable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,6 +71,8 @@ import com.day.cq.commons.inherit.HierarchyNodeInheritanceValueMap;
 import com.day.cq.commons.inherit.InheritanceValueMap;
 import com.day.cq.wcm.api.Page;
 import com.day.cq.wcm.api.PageManager;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * This is a wrapper class for {@link GraphqlClient}. The constructor adapts a {@link Resource} to
@@ -81,14 +89,44 @@ public class MagentoGraphqlClientImpl implements MagentoGraphqlClient {
     private static final Set<String> DENIED_HEADERS = DeniedHttpHeaders.DENYLIST.stream()
         .map(headerName -> headerName.toLowerCase(Locale.ROOT))
         .collect(Collectors.toSet());
+    /**
+     * Name of a boolean configuration property used by the CIF Configuration to enable request scoped query batching.
+     */
+    private static final String PN_ENABLE_QUERY_BATCHING = "enableQueryBatching";
+    /**
+     * Name of a boolean configuration property used by the CIF Configuration to enable Automatic Persisted Queries.
+     */
+    private static final String PN_ENABLE_PERSISTED_QUERIES = "enablePersistedQueries";
+    /**
+     * Caches the client profiles by the configuration they were created for. As the configurations are cached by the
+     * {@link com.adobe.cq.commerce.core.components.internal.services.ComponentsConfigurationAdapterFactory}, the profiles live as long
+     * as the configuration is cached and are discarded when it gets invalidated. The configurations are compared by identity.
+     */
+    private static final Cache<ComponentsConfiguration, Map<String, ClientProfile>> CLIENT_PROFILES = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
     private SlingHttpServletRequest request;
     private Resource resource;
     @ScriptVariable(injectionStrategy = InjectionStrategy.OPTIONAL)
     private Page currentPage;
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private GraphqlClientExecutor executor;
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private ProductEntityCache productEntityCache;
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private GraphqlClientResilience resilience;
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private GraphqlClientMetrics metrics;
 
     private GraphqlClient graphqlClient;
     private RequestOptions requestOptions;
     private List<Header> httpHeaders;
+    private String clientKey;
+    private String cacheName;
+    private GraphqlQueryBatch queryBatch;
+    private boolean persistedQueries;
+    private ProductEntityCache.Scope productEntities;
+    private GraphqlCallRecorder callRecorder;
 
     public MagentoGraphqlClientImpl(Resource resource) {
         this.resource = resource;
@@ -123,10 +161,9 @@ public class MagentoGraphqlClientImpl implements MagentoGraphqlClient {
     private void initModel(Resource resource, Page page, SlingHttpServletRequest request) {
         Resource configurationResource;
         String storeCode;
-        List<Header> headers;
-        HttpMethod httpMethod = null;
         Launch launch = null;
         Long previewVersion = null;
+        boolean queryBatching = false;
 
         if (page != null) {
             configurationResource = Objects.requireNonNull(page.adaptTo(Resource.class), "page is not a Resource");
@@ -145,8 +182,8 @@ public class MagentoGraphqlClientImpl implements MagentoGraphqlClient {
 
         if (configuration == null || configuration.size() == 0) {
             LOGGER.warn("Context configuration not found, attempt to read the configuration from the page");
+            configuration = null;
             graphqlClient = adaptToGraphqlClient(configurationResource);
-            headers = new ArrayList<>();
             storeCode = readFallBackConfiguration(configurationResource, STORE_CODE_PROPERTY);
         } else {
             LOGGER.debug("Crafting a configuration resource and attempting to get a GraphQL client from it...");
@@ -159,15 +196,12 @@ public class MagentoGraphqlClientImpl implements MagentoGraphqlClient {
                 configurationResource.getResourceType(),
                 configuration.getValueMap());
             graphqlClient = adaptToGraphqlClient(configResource);
-            headers = getCustomHttpHeaders(configuration);
             storeCode = configuration.get(STORE_CODE_PROPERTY, String.class);
             if (storeCode == null) {
                 storeCode = readFallBackConfiguration(configurationResource, STORE_CODE_PROPERTY);
             }
-        }
-
-        if (StringUtils.isNotEmpty(storeCode)) {
-            headers.add(new BasicHeader("Store", storeCode));
+            queryBatching = configuration.get(PN_ENABLE_QUERY_BATCHING, false);
+            persistedQueries = configuration.get(PN_ENABLE_PERSISTED_QUERIES, false);
         }
 
         if (launch != null) {
@@ -188,47 +222,161 @@ public class MagentoGraphqlClientImpl implements MagentoGraphqlClient {
             }
         }
 
-        if (previewVersion != null) {
-            headers.add(new BasicHeader("Preview-Version", String.valueOf(previewVersion)));
-            // We use POST to ensure that Magento doesn't return a cached response
-            httpMethod = HttpMethod.POST;
-        }
-
-        this.httpHeaders = headers;
         // In certain situations resource.getResourceType() returns an enforced resource type.
         // We prefer the resource type of the component proxy for the cache name.
         String cacheName = resource.getValueMap().get(ResourceResolver.PROPERTY_RESOURCE_TYPE, resource.getResourceType());
-        this.requestOptions = new RequestOptions()
-            .withGson(QueryDeserializer.getGson())
-            .withCachingStrategy(new CachingStrategy()
-                .withCacheName(cacheName)
-                .withDataFetchingPolicy(DataFetchingPolicy.CACHE_FIRST))
-            .withHeaders(headers.size() > 0 ? headers : null)
-            .withHttpMethod(httpMethod);
+        this.cacheName = cacheName;
+
+        ClientProfile profile = null;
+        if (configuration != null && previewVersion == null) {
+            // preview versions are taken from the request and are not cached to not fill the cache with arbitrary timewarp values
+            ComponentsConfiguration profileConfiguration = configuration;
+            String profileStoreCode = storeCode;
+            try {
+                profile = CLIENT_PROFILES.get(configuration, ConcurrentHashMap::new)
+                    .computeIfAbsent(storeCode + ";" + cacheName, key -> new ClientProfile(getCustomHttpHeaders(profileConfiguration),
+                        profileStoreCode, null, cacheName));
+            } catch (ExecutionException e) {
+                LOGGER.debug("Failed to get the cached client profile", e);
+            }
+        }
+        if (profile == null) {
+            List<Header> headers = configuration != null ? getCustomHttpHeaders(configuration) : new ArrayList<>();
+            profile = new ClientProfile(headers, storeCode, previewVersion, cacheName);
+        }
+
+        this.httpHeaders = profile.headers;
+        this.requestOptions = profile.requestOptions;
+
+        // queries can only be shared when they are sent to the same endpoint with the same headers
+        this.clientKey = graphqlClient.getGraphQLEndpoint() + ";" + profile.headersKey;
+        if (queryBatching && request != null) {
+            // merged queries are cached with the caching strategy of the client executing the batch
+            this.queryBatch = GraphqlQueryBatch.forRequest(request, clientKey + ";" + requestOptions.getHttpMethod() + ";" + cacheName);
+        }
+        if (productEntityCache != null) {
+            this.productEntities = productEntityCache.forRequest(request, clientKey);
+        }
+        if (request != null) {
+            this.callRecorder = GraphqlCallRecorder.forRequest(request);
+        }
     }
 
     @Override
     public GraphqlResponse<Query, Error> execute(String query) {
+        long start = System.nanoTime();
+        AtomicBoolean clientCalled = new AtomicBoolean();
+        GraphqlResponse<Query, Error> response;
         try {
-            return graphqlClient.execute(new GraphqlRequest(query), Query.class, Error.class, requestOptions);
+            if (productEntities != null) {
+                response = productEntities.execute(query, () -> executeBatched(query, clientCalled));
+            } else {
+                response = executeBatched(query, clientCalled);
+            }
         } catch (RuntimeException ex) {
             LOGGER.error("Failed to execute query: {}", query, ex);
-            return newErrorResponse(ex);
+            response = newErrorResponse(ex);
         }
+        recordMetrics(query, requestOptions, clientCalled.get(), response, start);
+        return response;
+    }
+
+    private GraphqlResponse<Query, Error> executeBatched(String query, AtomicBoolean clientCalled) {
+        if (queryBatch != null) {
+            GraphqlResponse<Query, Error> response = queryBatch.execute(query, batchQuery -> executeRequest(batchQuery, requestOptions,
+                clientCalled));
+            if (response != null) {
+                return response;
+            }
+        }
+        return executeRequest(query, requestOptions, clientCalled);
     }
 
     @Override
     public GraphqlResponse<Query, Error> execute(String query, HttpMethod httpMethod) {
+        long start = System.nanoTime();
+        AtomicBoolean clientCalled = new AtomicBoolean();
+        // We do not set the HTTP method in 'this.requestOptions' to avoid setting it as the new default
+        RequestOptions options = new RequestOptions().withGson(requestOptions.getGson())
+            .withHeaders(requestOptions.getHeaders())
+            .withHttpMethod(httpMethod);
+        GraphqlResponse<Query, Error> response;
         try {
-            // We do not set the HTTP method in 'this.requestOptions' to avoid setting it as the new default
-            RequestOptions options = new RequestOptions().withGson(requestOptions.getGson())
-                .withHeaders(requestOptions.getHeaders())
-                .withHttpMethod(httpMethod);
-
-            return graphqlClient.execute(new GraphqlRequest(query), Query.class, Error.class, options);
+            response = executeRequest(query, options, clientCalled);
         } catch (RuntimeException ex) {
             LOGGER.error("Failed to execute query: {}", query, ex);
-            return newErrorResponse(ex);
+            response = newErrorResponse(ex);
+        }
+        recordMetrics(query, options, clientCalled.get(), response, start);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<GraphqlResponse<Query, Error>> executeAsync(String query) {
+        if (executor == null) {
+            return MagentoGraphqlClient.super.executeAsync(query);
+        }
+        return CompletableFuture.supplyAsync(() -> execute(query), executor);
+    }
+
+    @Override
+    public CompletableFuture<GraphqlResponse<Query, Error>> executeAsync(String query, HttpMethod httpMethod) {
+        if (executor == null) {
+            return MagentoGraphqlClient.super.executeAsync(query, httpMethod);
+        }
+        return CompletableFuture.supplyAsync(() -> execute(query, httpMethod), executor);
+    }
+
+    private GraphqlResponse<Query, Error> executeRequest(String query, RequestOptions options, AtomicBoolean clientCalled) {
+        String requestKey = clientKey + ";" + options.getHttpMethod();
+        if (resilience != null) {
+            return resilience.execute(requestKey, query, () -> {
+                clientCalled.set(true);
+                return executeSharedRequest(requestKey, query, options);
+            });
+        }
+        clientCalled.set(true);
+        return executeSharedRequest(requestKey, query, options);
+    }
+
+    private GraphqlResponse<Query, Error> executeSharedRequest(String requestKey, String query, RequestOptions options) {
+        // identical queries executed concurrently share a single HTTP call
+        return InFlightQueries.INSTANCE.execute(requestKey, query, () -> {
+            if (persistedQueries && isPost(options)) {
+                return PersistedQueries.INSTANCE.execute(clientKey, query,
+                    request -> graphqlClient.execute(request, Query.class, Error.class, options));
+            }
+            return graphqlClient.execute(new GraphqlRequest(query), Query.class, Error.class, options);
+        });
+    }
+
+    private void recordMetrics(String query, RequestOptions options, boolean clientCalled, GraphqlResponse<Query, Error> response,
+        long start) {
+        long duration = System.nanoTime() - start;
+        if (metrics != null) {
+            HttpMethod httpMethod = isPost(options) ? HttpMethod.POST : HttpMethod.GET;
+            metrics.record(cacheName, httpMethod, clientCalled, response, duration, query);
+        }
+        if (callRecorder != null) {
+            callRecorder.record(query, clientCalled, duration);
+        }
+    }
+
+    private boolean isPost(RequestOptions options) {
+        // the GraphQL client only sends the query, the operation name and the variables as parameters of GET requests, the extensions
+        // of persisted queries can only be sent in the body of POST requests
+        if (options.getHttpMethod() != null) {
+            return options.getHttpMethod() == HttpMethod.POST;
+        }
+        GraphqlClientConfiguration configuration = graphqlClient.getConfiguration();
+        return configuration != null && configuration.httpMethod() == HttpMethod.POST;
+    }
+
+    @Override
+    public void registerQuery(Supplier<String> query) {
+        if (queryBatch != null) {
+            // the query is only generated when the batch is executed, after all customizations of the query
+            queryBatch.register(query);
         }
     }
 
@@ -324,6 +472,43 @@ public class MagentoGraphqlClientImpl implements MagentoGraphqlClient {
         return storeCode;
     }
 
+    /**
+     * The immutable part of the client state that only depends on the configuration, the store code, the preview version and the cache
+     * name. It is shared by all clients created for the same configuration.
+     */
+    private static class ClientProfile {
+        private final List<Header> headers;
+        private final String headersKey;
+        private final RequestOptions requestOptions;
+
+        private ClientProfile(List<Header> customHeaders, String storeCode, Long previewVersion, String cacheName) {
+            List<Header> headers = new ArrayList<>(customHeaders);
+            HttpMethod httpMethod = null;
+
+            if (StringUtils.isNotEmpty(storeCode)) {
+                headers.add(new BasicHeader("Store", storeCode));
+            }
+
+            if (previewVersion != null) {
+                headers.add(new BasicHeader("Preview-Version", String.valueOf(previewVersion)));
+                // We use POST to ensure that Magento doesn't return a cached response
+                httpMethod = HttpMethod.POST;
+            }
+
+            this.headers = Collections.unmodifiableList(headers);
+            this.headersKey = headers.stream()
+                .map(header -> header.getName() + "=" + header.getValue())
+                .collect(Collectors.joining(";"));
+            this.requestOptions = new RequestOptions()
+                .withGson(QueryDeserializer.getGson())
+                .withCachingStrategy(new CachingStrategy()
+                    .withCacheName(cacheName)
+                    .withDataFetchingPolicy(DataFetchingPolicy.CACHE_FIRST))
+                .withHeaders(headers.size() > 0 ? this.headers : null)
+                .withHttpMethod(httpMethod);
+        }
+    }
+
     /**
      * Returns the {@link Page} the {@link Resource} belongs to. This may be the {@link Page} object at the path of the {@link Resource}
      * when the {@link Resource} is a cq:Page, or the {@link Page} returned from {@link PageManager#getContainingPage(Resource)}.
@@ -0,0 +1,168 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlRequest;
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Executes GraphQL queries as Automatic Persisted Queries. Instead of the full query only its SHA-256 hash is sent, in the
+ * <code>extensions.persistedQuery</code> field of the request. The first time a query is executed against an endpoint, the hash is sent
+ * together with the query so that the server can register it. Hashes accepted by the server are kept in a local registry and all further
+ * executions only send the hash.
+ * <p>
+ * If the server does not know a hash anymore, the query is sent again with its hash. If the server does not support persisted queries, or
+ * answers a request with only the hash with any other error, they are disabled for that endpoint and the plain query is sent. Requests
+ * with only the hash that throw an exception are retried with the plain query without disabling persisted queries.
+ * <p>
+ * Persisted queries are only used for POST requests, as the GraphQL client only sends the query, the operation name and the variables as
+ * parameters of GET requests.
+ */
+class PersistedQueries {
+
+    static final PersistedQueries INSTANCE = new PersistedQueries();
+
+    static final String PERSISTED_QUERY_NOT_FOUND = "PersistedQueryNotFound";
+    static final String PERSISTED_QUERY_NOT_SUPPORTED = "PersistedQueryNotSupported";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistedQueries.class);
+    private static final int MAX_REGISTERED_HASHES = 10000;
+
+    private final Cache<String, Boolean> registeredHashes = CacheBuilder.newBuilder().maximumSize(MAX_REGISTERED_HASHES).build();
+    private final Set<String> unsupportedEndpoints = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * Executes the given query as a persisted query.
+     *
+     * @param clientKey a key identifying the endpoint and the HTTP headers of the call
+     * @param query the GraphQL query
+     * @param call the call executing a request
+     * @return the response of the call
+     */
+    GraphqlResponse<Query, Error> execute(String clientKey, String query, Function<GraphqlRequest, GraphqlResponse<Query, Error>> call) {
+        if (unsupportedEndpoints.contains(clientKey)) {
+            return call.apply(new GraphqlRequest(query));
+        }
+
+        String hash = DigestUtils.sha256Hex(query);
+        String registryKey = clientKey + ";" + hash;
+        if (registeredHashes.getIfPresent(registryKey) != null) {
+            GraphqlResponse<Query, Error> response;
+            try {
+                response = call.apply(new PersistedQueryRequest(query, hash, false));
+            } catch (RuntimeException e) {
+                // exceptions may be thrown locally, they do not prove that the server does not support persisted queries
+                LOGGER.warn("Persisted query {} failed on {}, sending the plain query", hash, clientKey, e);
+                return call.apply(new GraphqlRequest(query));
+            }
+            if (response != null && CollectionUtils.isEmpty(response.getErrors())) {
+                return response;
+            }
+            if (!hasError(response, PERSISTED_QUERY_NOT_FOUND)) {
+                // servers ignoring the extension accept the registration but fail on requests without a query
+                LOGGER.warn("Persisted query {} failed on {}, sending plain queries", hash, clientKey);
+                unsupportedEndpoints.add(clientKey);
+                return call.apply(new GraphqlRequest(query));
+            }
+            LOGGER.debug("Persisted query {} not found, registering it again", hash);
+            registeredHashes.invalidate(registryKey);
+        }
+
+        GraphqlResponse<Query, Error> response = call.apply(new PersistedQueryRequest(query, hash, true));
+        if (hasError(response, PERSISTED_QUERY_NOT_SUPPORTED)) {
+            LOGGER.warn("Persisted queries are not supported by {}, sending plain queries", clientKey);
+            unsupportedEndpoints.add(clientKey);
+            return call.apply(new GraphqlRequest(query));
+        }
+        if (response != null && CollectionUtils.isEmpty(response.getErrors())) {
+            registeredHashes.put(registryKey, Boolean.TRUE);
+        }
+        return response;
+    }
+
+    private static boolean hasError(GraphqlResponse<Query, Error> response, String message) {
+        return response != null && response.getErrors() != null && response.getErrors().stream()
+            .anyMatch(error -> message.equals(error.getMessage()));
+    }
+
+    /**
+     * A GraphQL request with the <code>persistedQuery</code> extension. The query is always returned by {@link #getQuery()}, which the
+     * GraphQL client uses to select and key its caches, but it is only serialized when the hash has to be registered.
+     */
+    static class PersistedQueryRequest extends GraphqlRequest {
+
+        private final transient String persistedQuery;
+        private final Map<String, Object> extensions;
+
+        PersistedQueryRequest(String query, String hash, boolean sendQuery) {
+            super(sendQuery ? query : null);
+            this.persistedQuery = query;
+            Map<String, Object> persistedQuery = new HashMap<>();
+            persistedQuery.put("version", 1);
+            persistedQuery.put("sha256Hash", hash);
+            extensions = Collections.singletonMap("persistedQuery", persistedQuery);
+        }
+
+        Map<String, Object> getExtensions() {
+            return extensions;
+        }
+
+        @Override
+        public String getQuery() {
+            return persistedQuery;
+        }
+
+        boolean isQuerySent() {
+            return query != null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            // registering and hash-only requests of a query share the responses cached by the GraphQL client
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PersistedQueryRequest other = (PersistedQueryRequest) o;
+            return Objects.equals(persistedQuery, other.persistedQuery) && Objects.equals(operationName, other.operationName)
+                && Objects.equals(variables, other.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(persistedQuery, operationName, variables);
+        }
+    }
+}
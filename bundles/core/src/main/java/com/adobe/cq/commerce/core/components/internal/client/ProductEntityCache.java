@@ -0,0 +1,352 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.ProductInterface;
+import com.adobe.cq.commerce.magento.graphql.Products;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A normalized cache of the products fetched by SKU. Components fetch the same product with different field selections, for example
+ * the product component, the breadcrumb and the commerce links of a product page. The products returned by queries like
+ * <code>{products(filter:{sku:{eq:"..."}}){items{...}}}</code> are cached together with the set of fields they were fetched with, and
+ * any later query of the same product is served from the cache if it only selects fields that are part of a cached field set.
+ * <p>
+ * The products are always cached for the current request. Optionally they are also cached across requests. The cached products are
+ * keyed by the SKU and the client key, which identifies the endpoint and the HTTP headers including the store code and the preview
+ * version.
+ */
+@Component(service = ProductEntityCache.class)
+@Designate(ocd = ProductEntityCacheConfiguration.class)
+public class ProductEntityCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductEntityCache.class);
+    private static final String REQUEST_ATTRIBUTE = ProductEntityCache.class.getName();
+    private static final String QUERY_PREFIX = "{products(filter:{sku:{eq:";
+    private static final Pattern PRODUCTS_BY_SKU = Pattern.compile("products\\(filter:\\{sku:\\{eq:(\"(?:[^\"\\\\]|\\\\.)*\")}}\\)");
+    // the number of different field sets cached for a single product
+    private static final int MAX_FIELD_SETS = 4;
+
+    private volatile Cache<String, ProductEntity> sharedCache;
+
+    @Activate
+    @Modified
+    protected void activate(ProductEntityCacheConfiguration configuration) {
+        if (configuration.cacheSize() > 0) {
+            sharedCache = CacheBuilder.newBuilder()
+                .maximumSize(configuration.cacheSize())
+                .expireAfterWrite(Math.max(0, configuration.cacheTtl()), TimeUnit.SECONDS)
+                .build();
+        } else {
+            sharedCache = null;
+        }
+    }
+
+    /**
+     * Returns the scope of this cache for the given request and client key. Clients must only share a scope when they send their queries
+     * to the same endpoint with the same HTTP headers.
+     *
+     * @param request the current request, may be {@code null}
+     * @param clientKey a key identifying the endpoint and the HTTP headers of the client
+     * @return the scope
+     */
+    Scope forRequest(SlingHttpServletRequest request, String clientKey) {
+        Map<String, ProductEntity> requestCache = null;
+        if (request != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, ProductEntity> entities = (Map<String, ProductEntity>) request.getAttribute(REQUEST_ATTRIBUTE);
+            if (entities == null) {
+                // the map is shared with asynchronous queries executed by other threads
+                entities = new ConcurrentHashMap<>();
+                request.setAttribute(REQUEST_ATTRIBUTE, entities);
+            }
+            requestCache = entities;
+        }
+        return new Scope(requestCache, clientKey);
+    }
+
+    /**
+     * The view of the cache for a single client.
+     */
+    class Scope {
+        private final Map<String, ProductEntity> requestCache;
+        private final String clientKey;
+
+        private Scope(Map<String, ProductEntity> requestCache, String clientKey) {
+            this.requestCache = requestCache;
+            this.clientKey = clientKey;
+        }
+
+        /**
+         * Returns the response of the given query from the cache if the query fetches a single product by SKU and all its fields are
+         * cached, otherwise executes the query and caches the product of its response.
+         *
+         * @param query the GraphQL query
+         * @param call the call executing the query
+         * @return the response
+         */
+        GraphqlResponse<Query, Error> execute(String query, Supplier<GraphqlResponse<Query, Error>> call) {
+            Cache<String, ProductEntity> cache = sharedCache;
+            ProductQuery productQuery = requestCache != null || cache != null ? ProductQuery.parse(query) : null;
+            if (productQuery == null) {
+                return call.get();
+            }
+
+            String key = clientKey + ";" + productQuery.sku;
+            ProductInterface product = lookup(requestCache != null ? requestCache.get(key) : null, productQuery.fields);
+            if (product == null && cache != null) {
+                product = lookup(cache.getIfPresent(key), productQuery.fields);
+            }
+            if (product != null) {
+                LOGGER.debug("Serving product {} from the product entity cache", productQuery.sku);
+                GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+                response.setData(new Query().setProducts(new Products().setItems(Collections.singletonList(product))));
+                return response;
+            }
+
+            GraphqlResponse<Query, Error> response = call.get();
+            if (response != null && CollectionUtils.isEmpty(response.getErrors()) && response.getData() != null
+                && response.getData().getProducts() != null && response.getData().getProducts().getItems() != null
+                && response.getData().getProducts().getItems().size() == 1) {
+                ProductEntity entity = new ProductEntity(productQuery.fields, response.getData().getProducts().getItems().get(0));
+                if (requestCache != null) {
+                    requestCache.merge(key, entity, ProductEntity::merge);
+                }
+                if (cache != null) {
+                    cache.asMap().merge(key, entity, ProductEntity::merge);
+                }
+            }
+            return response;
+        }
+
+        private ProductInterface lookup(ProductEntity entity, SelectionSet fields) {
+            return entity != null ? entity.get(fields) : null;
+        }
+    }
+
+    /**
+     * A query of a single product by SKU.
+     */
+    static class ProductQuery {
+        private final String sku;
+        private final SelectionSet fields;
+
+        private ProductQuery(String sku, SelectionSet fields) {
+            this.sku = sku;
+            this.fields = fields;
+        }
+
+        /**
+         * Parses the given query as generated by the query builder.
+         *
+         * @param query the GraphQL query
+         * @return the parsed query or {@code null} if it is not a query of a single product by SKU
+         */
+        static ProductQuery parse(String query) {
+            if (query == null || !query.startsWith(QUERY_PREFIX)) {
+                return null;
+            }
+            SelectionSet root = SelectionSet.parse(query);
+            if (root == null || root.fields.size() != 1) {
+                return null;
+            }
+            Map.Entry<String, SelectionSet> products = root.fields.entrySet().iterator().next();
+            Matcher matcher = PRODUCTS_BY_SKU.matcher(products.getKey());
+            SelectionSet items = products.getValue().fields.get("items");
+            if (!matcher.matches() || products.getValue().fields.size() != 1 || items == null || items.fields.isEmpty()) {
+                return null;
+            }
+            return new ProductQuery(matcher.group(1), items);
+        }
+    }
+
+    /**
+     * A product together with the field sets it was fetched with. Instances are immutable.
+     */
+    static class ProductEntity {
+        private final List<SelectionSet> fieldSets;
+        private final List<ProductInterface> products;
+
+        private ProductEntity(SelectionSet fields, ProductInterface product) {
+            this(Collections.singletonList(fields), Collections.singletonList(product));
+        }
+
+        private ProductEntity(List<SelectionSet> fieldSets, List<ProductInterface> products) {
+            this.fieldSets = fieldSets;
+            this.products = products;
+        }
+
+        ProductInterface get(SelectionSet fields) {
+            for (int i = 0; i < fieldSets.size(); i++) {
+                if (fieldSets.get(i).covers(fields)) {
+                    return products.get(i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns a new entity with the field sets of the given entity first, followed by the field sets of this entity that are not
+         * covered by them.
+         */
+        ProductEntity merge(ProductEntity newer) {
+            List<SelectionSet> mergedFieldSets = new ArrayList<>(newer.fieldSets);
+            List<ProductInterface> mergedProducts = new ArrayList<>(newer.products);
+            for (int i = 0; i < fieldSets.size() && mergedFieldSets.size() < MAX_FIELD_SETS; i++) {
+                SelectionSet fields = fieldSets.get(i);
+                if (mergedFieldSets.stream().noneMatch(merged -> merged.covers(fields))) {
+                    mergedFieldSets.add(fields);
+                    mergedProducts.add(products.get(i));
+                }
+            }
+            return new ProductEntity(mergedFieldSets, mergedProducts);
+        }
+    }
+
+    /**
+     * The fields selected by a GraphQL query. Each field is keyed by its alias, name and arguments, inline fragments are keyed by their
+     * type condition.
+     */
+    static class SelectionSet {
+        private static final SelectionSet EMPTY = new SelectionSet(Collections.emptyMap());
+
+        private final Map<String, SelectionSet> fields;
+
+        private SelectionSet(Map<String, SelectionSet> fields) {
+            this.fields = fields;
+        }
+
+        /**
+         * Returns true if all the fields selected by the given selection set are selected by this selection set as well.
+         */
+        boolean covers(SelectionSet other) {
+            for (Map.Entry<String, SelectionSet> field : other.fields.entrySet()) {
+                SelectionSet selection = fields.get(field.getKey());
+                if (selection == null || !selection.covers(field.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Parses the selection set of an anonymous query.
+         *
+         * @param query the GraphQL query
+         * @return the selection set or {@code null} if the query cannot be parsed
+         */
+        static SelectionSet parse(String query) {
+            int[] position = { 1 };
+            SelectionSet selectionSet = query.startsWith("{") ? parse(query, position) : null;
+            return selectionSet != null && query.substring(position[0]).trim().isEmpty() ? selectionSet : null;
+        }
+
+        private static SelectionSet parse(String text, int[] position) {
+            Map<String, SelectionSet> fields = new LinkedHashMap<>();
+            int i = position[0];
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (c == '}') {
+                    position[0] = i + 1;
+                    return new SelectionSet(fields);
+                }
+                if (c == ',' || Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+
+                // the key of a field reaches up to its selection set or the next field
+                int start = i;
+                int depth = 0;
+                while (i < text.length() && (depth > 0 || (text.charAt(i) != '{' && text.charAt(i) != '}' && text.charAt(i) != ','))) {
+                    char k = text.charAt(i);
+                    if (k == '"') {
+                        i = skipString(text, i);
+                        if (i < 0) {
+                            return null;
+                        }
+                        continue;
+                    }
+                    if (k == '(') {
+                        depth++;
+                    } else if (k == ')') {
+                        depth--;
+                    }
+                    i++;
+                }
+                if (i >= text.length()) {
+                    return null;
+                }
+
+                String key = text.substring(start, i).trim();
+                SelectionSet selection = EMPTY;
+                if (text.charAt(i) == '{') {
+                    position[0] = i + 1;
+                    selection = parse(text, position);
+                    if (selection == null) {
+                        return null;
+                    }
+                    i = position[0];
+                }
+                SelectionSet existing = fields.get(key);
+                fields.put(key, existing != null ? existing.merge(selection) : selection);
+            }
+            return null;
+        }
+
+        private SelectionSet merge(SelectionSet other) {
+            Map<String, SelectionSet> merged = new LinkedHashMap<>(fields);
+            other.fields.forEach((key, selection) -> merged.merge(key, selection, SelectionSet::merge));
+            return new SelectionSet(merged);
+        }
+
+        private static int skipString(String text, int start) {
+            for (int i = start + 1; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+    }
+}
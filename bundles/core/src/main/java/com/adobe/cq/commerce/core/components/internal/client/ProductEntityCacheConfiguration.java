@@ -0,0 +1,35 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+@ObjectClassDefinition(name = "CIF Product Entity Cache")
+public @interface ProductEntityCacheConfiguration {
+
+    @AttributeDefinition(
+        name = "Cache size",
+        description = "The maximum number of products cached across requests. Products are always shared by the components of the same "
+            + "request, this cache additionally shares them with later requests for the same store and HTTP headers. It bypasses the "
+            + "cache configurations of the GraphQL client. Set to 0 to disable the cache.")
+    int cacheSize() default 0;
+
+    @AttributeDefinition(
+        name = "Cache TTL",
+        description = "The time in seconds a product is cached across requests.")
+    int cacheTtl() default 60;
+}
@@ -0,0 +1,191 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shopify.graphql.support.AbstractQuery;
+
+/**
+ * Compiles GraphQL queries that only differ in a single string argument into templates. The query builder DSL is only run once per
+ * template key with a placeholder argument, later queries are rendered by filling the quoted argument into the slots of the placeholder.
+ * The rendered queries are identical to the ones generated by the DSL.
+ * <p>
+ * A template key must identify everything the generated query depends on except the argument. For retrievers this is the retriever
+ * class and the classes of its query hooks, see {@link #retrieverKey(Class, Class, Object...)}. Classes are identified by their name and
+ * the bundle that loaded them, so that the templates do not keep the class loaders of uninstalled or updated bundles.
+ */
+public final class QueryTemplates {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryTemplates.class);
+    private static final String PLACEHOLDER = "__cif_query_template_argument__";
+    private static final String QUOTED_PLACEHOLDER = quote(PLACEHOLDER);
+    private static final int MAX_TEMPLATES = 1000;
+
+    // queries that cannot be compiled are cached as template without slots
+    private static final Cache<Object, List<String>> TEMPLATES = CacheBuilder.newBuilder().maximumSize(MAX_TEMPLATES).build();
+
+    // only checks the fields declared by a class, not the ones it inherits
+    private static final ClassValue<Boolean> STATELESS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return Arrays.stream(type.getDeclaredFields()).map(Field::getModifiers).allMatch(Modifier::isStatic);
+        }
+    };
+
+    private QueryTemplates() {}
+
+    /**
+     * Returns a template key for a retriever, or {@code null} if the query of the retriever cannot be compiled into a template. This is
+     * the case if the retriever class or any class between it and the given base class declares instance fields, or if any of the given
+     * query hooks or their super classes capture state. Chained hooks, for example, always capture the hooks they combine.
+     *
+     * @param retrieverClass the class of the retriever
+     * @param baseClass the abstract retriever class that generates the query
+     * @param hooks the query hooks of the retriever, may contain {@code null} values
+     * @return the template key or {@code null}
+     */
+    public static Object retrieverKey(Class<?> retrieverClass, Class<?> baseClass, Object... hooks) {
+        if (!isStateless(retrieverClass, baseClass)) {
+            return null;
+        }
+
+        List<Object> key = new ArrayList<>(hooks.length + 1);
+        key.add(classKey(retrieverClass));
+        for (Object hook : hooks) {
+            if (hook != null && !isStateless(hook.getClass(), Object.class)) {
+                return null;
+            }
+            key.add(hook != null ? classKey(hook.getClass()) : null);
+        }
+        return key;
+    }
+
+    private static boolean isStateless(Class<?> type, Class<?> baseClass) {
+        for (; type != baseClass; type = type.getSuperclass()) {
+            if (type == null || !STATELESS.get(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String classKey(Class<?> type) {
+        Bundle bundle = FrameworkUtil.getBundle(type);
+        // an updated bundle keeps its id but loads its classes again
+        return bundle != null ? type.getName() + ";" + bundle.getBundleId() + ";" + bundle.getLastModified() : type.getName();
+    }
+
+    /**
+     * Generates a query with a single string argument.
+     *
+     * @param key the template key or {@code null} to generate the query without template
+     * @param argument the argument
+     * @param generator generates the query for an argument with the query builder DSL
+     * @return the GraphQL query
+     */
+    public static String generate(Object key, String argument, Function<String, String> generator) {
+        if (key == null || argument == null) {
+            return generator.apply(argument);
+        }
+
+        List<String> template = getTemplate(key, () -> generator.apply(PLACEHOLDER));
+        return template.size() > 1 ? render(template, quote(argument)) : generator.apply(argument);
+    }
+
+    /**
+     * Generates a query with a single string list argument.
+     *
+     * @param key the template key or {@code null} to generate the query without template
+     * @param arguments the list argument
+     * @param generator generates the query for a list argument with the query builder DSL
+     * @return the GraphQL query
+     */
+    public static String generate(Object key, List<String> arguments, Function<List<String>, String> generator) {
+        if (key == null || arguments == null || arguments.contains(null)) {
+            return generator.apply(arguments);
+        }
+
+        List<String> template = getTemplate(key, () -> generator.apply(Collections.singletonList(PLACEHOLDER)));
+        if (template.size() == 1) {
+            return generator.apply(arguments);
+        }
+
+        StringBuilder quoted = new StringBuilder();
+        for (String argument : arguments) {
+            if (quoted.length() > 0) {
+                quoted.append(',');
+            }
+            AbstractQuery.appendQuotedString(quoted, argument);
+        }
+        return render(template, quoted.toString());
+    }
+
+    private static List<String> getTemplate(Object key, Supplier<String> placeholderQuery) {
+        try {
+            return TEMPLATES.get(key, () -> compile(placeholderQuery.get()));
+        } catch (ExecutionException e) {
+            LOGGER.warn("Failed to compile query template for {}", key, e);
+            return Collections.singletonList(null);
+        }
+    }
+
+    private static List<String> compile(String query) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int slot = query.indexOf(QUOTED_PLACEHOLDER); slot >= 0; slot = query.indexOf(QUOTED_PLACEHOLDER, start)) {
+            parts.add(query.substring(start, slot));
+            start = slot + QUOTED_PLACEHOLDER.length();
+        }
+        parts.add(query.substring(start));
+        return Collections.unmodifiableList(parts);
+    }
+
+    private static String render(List<String> template, String quotedArgument) {
+        int length = 0;
+        for (String part : template) {
+            length += part.length() + quotedArgument.length();
+        }
+
+        StringBuilder query = new StringBuilder(length);
+        query.append(template.get(0));
+        for (int i = 1; i < template.size(); i++) {
+            query.append(quotedArgument).append(template.get(i));
+        }
+        return query.toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        AbstractQuery.appendQuotedString(quoted, value);
+        return quoted.toString();
+    }
+}
@@ -140,6 +140,7 @@ public class FeaturedCategoryListImpl extends DataLayerComponent implements Feat
                 categoriesRetriever = new CategoriesRetriever(magentoGraphqlClient);
                 // Setting the identifiers list based on the determined identifier type
                 categoriesRetriever.setIdentifiers(categoryIdentifiers);
+                categoriesRetriever.registerQuery();
             }
         }
     }
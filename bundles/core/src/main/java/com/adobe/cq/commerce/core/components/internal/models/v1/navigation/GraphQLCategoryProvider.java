@@ -15,6 +15,7 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.models.v1.navigation;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -27,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.CategoryFilterInput;
 import com.adobe.cq.commerce.magento.graphql.CategoryTree;
@@ -61,11 +63,13 @@ class GraphQLCategoryProvider {
             return Collections.emptyList();
         }
 
-        QueryQuery.CategoryListArgumentsDefinition searchArgs = d -> d.filters(new CategoryFilterInput().setCategoryUid(
-            new FilterEqualTypeInput().setEq(
-                categoryIdentifier)));
-
-        String queryString = Operations.query(query -> query.categoryList(searchArgs, defineCategoriesQuery(depth))).toString();
+        // the query only depends on the depth besides the identifier
+        String queryString = QueryTemplates.generate(Arrays.asList(GraphQLCategoryProvider.class.getName(), depth), categoryIdentifier,
+            identifier -> {
+                QueryQuery.CategoryListArgumentsDefinition searchArgs = d -> d.filters(new CategoryFilterInput().setCategoryUid(
+                    new FilterEqualTypeInput().setEq(identifier)));
+                return Operations.query(query -> query.categoryList(searchArgs, defineCategoriesQuery(depth))).toString();
+            });
         GraphqlResponse<Query, Error> response = magentoGraphqlClient.execute(queryString);
 
         if (CollectionUtils.isNotEmpty(response.getErrors())) {
@@ -119,6 +119,7 @@ public class ProductCarouselImpl extends ProductCarouselBase implements ProductC
         } else {
             productsRetriever = new ProductsRetriever(magentoGraphqlClient);
             productsRetriever.setIdentifiers(baseProductSkus);
+            productsRetriever.registerQuery();
         }
     }
 
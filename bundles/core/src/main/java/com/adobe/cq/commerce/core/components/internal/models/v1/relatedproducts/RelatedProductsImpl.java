@@ -127,6 +127,7 @@ public class RelatedProductsImpl extends ProductCarouselBase implements ProductC
         relationType = relationTypeProperty != null ? RelationType.valueOf(relationTypeProperty) : RelationType.RELATED_PRODUCTS;
         productsRetriever = new RelatedProductsRetriever(magentoGraphqlClient, relationType);
         productsRetriever.setIdentifiers(Collections.singletonList(productSku));
+        productsRetriever.registerQuery();
     }
 
     @Override
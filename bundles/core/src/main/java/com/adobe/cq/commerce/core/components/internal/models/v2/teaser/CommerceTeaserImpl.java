@@ -16,7 +16,11 @@
 package com.adobe.cq.commerce.core.components.internal.models.v2.teaser;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 
@@ -94,6 +98,24 @@ public class CommerceTeaserImpl implements CommerceTeaser {
             Page productPage = SiteNavigation.getProductPage(currentPage);
             Page categoryPage = SiteNavigation.getCategoryPage(currentPage);
 
+            // resolve the URLs of all linked products and categories at once
+            Set<String> productSkus = new LinkedHashSet<>();
+            Set<String> categoryUids = new LinkedHashSet<>();
+            for (Resource action : configuredActions) {
+                ValueMap actionProperties = action.getValueMap();
+                String productSku = actionProperties.get(PN_ACTION_PRODUCT_SKU, String.class);
+                String categoryUid = actionProperties.get(PN_ACTION_CATEGORY_ID, String.class);
+                if (StringUtils.isNotBlank(categoryUid)) {
+                    categoryUids.add(categoryUid);
+                } else if (StringUtils.isNotBlank(productSku)) {
+                    productSkus.add(productSku);
+                }
+            }
+            Map<String, String> categoryUrls = categoryUids.isEmpty() ? Collections.emptyMap()
+                : urlProvider.toCategoryUrls(request, categoryPage, categoryUids);
+            Map<String, String> productUrls = productSkus.isEmpty() ? Collections.emptyMap()
+                : urlProvider.toProductUrls(request, productPage, productSkus);
+
             // build teaser action items for all configured actions
             for (Resource action : configuredActions) {
                 ValueMap actionProperties = action.getValueMap();
@@ -105,11 +127,11 @@ public class CommerceTeaserImpl implements CommerceTeaser {
                 CommerceIdentifier identifier = null;
 
                 if (StringUtils.isNotBlank(categoryUid)) {
-                    actionUrl = urlProvider.toCategoryUrl(request, categoryPage, categoryUid);
+                    actionUrl = categoryUrls.get(categoryUid);
                     identifier = new CommerceIdentifierImpl(categoryUid, CommerceIdentifier.IdentifierType.UID,
                         CommerceIdentifier.EntityType.CATEGORY);
                 } else if (StringUtils.isNotBlank(productSku)) {
-                    actionUrl = urlProvider.toProductUrl(request, productPage, productSku);
+                    actionUrl = productUrls.get(productSku);
                     identifier = new CommerceIdentifierImpl(productSku, CommerceIdentifier.IdentifierType.SKU,
                         CommerceIdentifier.EntityType.PRODUCT);
                 } else if (StringUtils.isNotBlank(link)) {
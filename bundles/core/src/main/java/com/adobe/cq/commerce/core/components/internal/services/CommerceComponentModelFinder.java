@@ -15,10 +15,17 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
+import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.models.factory.ModelFactory;
@@ -31,12 +38,18 @@ import com.adobe.cq.commerce.core.components.internal.models.v1.product.ProductI
 import com.adobe.cq.commerce.core.components.internal.models.v2.productlist.ProductListImpl;
 import com.adobe.cq.commerce.core.components.models.product.Product;
 import com.adobe.cq.commerce.core.components.models.productlist.ProductList;
+import com.day.cq.wcm.api.NameConstants;
 import com.drew.lang.annotations.Nullable;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * This service allows to traverse a {@link Resource} tree looking for a {@link Resource} of a set of particular resource types and if
  * found adapting them to given adapter type. This helps for example finding the product component on the page and return the Product model
  * from it.
+ * <p>
+ * The location of the component found is cached per root resource and its last modification date, so that the tree of a page is only
+ * traversed again after the page was modified. The traversal itself is limited in depth and in the number of resources visited.
  */
 @Component(
     service = CommerceComponentModelFinder.class)
@@ -47,10 +60,16 @@ public class CommerceComponentModelFinder {
     private static final Collection<String> PRODUCT_LIST_RTS = Arrays.asList(
         ProductListImpl.RESOURCE_TYPE,
         com.adobe.cq.commerce.core.components.internal.models.v1.productlist.ProductListImpl.RESOURCE_TYPE);
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_RESOURCES = 10000;
+    private static final String NOT_FOUND = "";
 
     @Reference
     private ModelFactory modelFactory;
 
+    // maps the root path, its last modification date and the resource types to the relative path of the component found
+    private final Cache<String, String> componentLocations = CacheBuilder.newBuilder().maximumSize(1000).build();
+
     @Nullable
     public Product findProductComponentModel(SlingHttpServletRequest request) {
         return findComponentModel(request, PRODUCT_RTS, Product.class);
@@ -71,6 +90,16 @@ public class CommerceComponentModelFinder {
         return findComponentModel(request, root, PRODUCT_LIST_RTS, ProductList.class);
     }
 
+    @Nullable
+    public Resource findProductComponentResource(Resource root) {
+        return findChildResourceWithType(root, PRODUCT_RTS);
+    }
+
+    @Nullable
+    public Resource findProductListComponentResource(Resource root) {
+        return findChildResourceWithType(root, PRODUCT_LIST_RTS);
+    }
+
     @Nullable
     public <T> T findComponentModel(SlingHttpServletRequest request, String resourceType, Class<T> adapterType) {
         return findComponentModel(request, Collections.singletonList(resourceType), adapterType);
@@ -102,22 +131,83 @@ public class CommerceComponentModelFinder {
             return null;
         }
 
+        String cacheKey = getCacheKey(fromResource, resourceTypes);
+        if (cacheKey != null) {
+            String relativePath = componentLocations.getIfPresent(cacheKey);
+            if (NOT_FOUND.equals(relativePath)) {
+                return null;
+            }
+            Resource child = relativePath != null ? fromResource.getChild(relativePath) : null;
+            if (child != null) {
+                LOGGER.debug("Found cached child resource at {}", child.getPath());
+                return child;
+            }
+        }
+
+        Resource child = searchChildResourceWithType(fromResource, resourceTypes);
+        if (cacheKey != null) {
+            componentLocations.put(cacheKey, child != null ? child.getPath().substring(fromResource.getPath().length() + 1) : NOT_FOUND);
+        }
+        return child;
+    }
+
+    private Resource searchChildResourceWithType(Resource fromResource, Collection<String> resourceTypes) {
         LOGGER.debug("Looking for child resource type '{}' from {}", resourceTypes, fromResource.getPath());
 
-        for (Resource child : fromResource.getChildren()) {
-            for (String resourceType : resourceTypes) {
-                if (child.isResourceType(resourceType)) {
-                    LOGGER.debug("Found child resource type '{}' at {}", resourceType, child.getPath());
-                    return child;
-                }
+        // the resource types of most resources in the tree are the same, so we resolve their super types only once
+        Map<String, Boolean> matchingTypes = new HashMap<>();
+        Deque<Iterator<Resource>> stack = new ArrayDeque<>();
+        stack.push(fromResource.listChildren());
+        int visited = 0;
+
+        // depth-first traversal in the same order as a recursive one would visit the resources
+        while (!stack.isEmpty()) {
+            Iterator<Resource> children = stack.peek();
+            if (!children.hasNext()) {
+                stack.pop();
+                continue;
             }
 
-            Resource resource = findChildResourceWithType(child, resourceTypes);
-            if (resource != null) {
-                return resource;
+            Resource child = children.next();
+            if (isResourceType(child, resourceTypes, matchingTypes)) {
+                LOGGER.debug("Found child resource type '{}' at {}", child.getResourceType(), child.getPath());
+                return child;
+            }
+
+            if (++visited >= MAX_RESOURCES) {
+                LOGGER.warn("Stopped looking for child resource type '{}' after {} resources in {}", resourceTypes, visited,
+                    fromResource.getPath());
+                return null;
+            }
+
+            if (stack.size() < MAX_DEPTH) {
+                stack.push(child.listChildren());
             }
         }
 
         return null;
     }
+
+    private static boolean isResourceType(Resource resource, Collection<String> resourceTypes, Map<String, Boolean> matchingTypes) {
+        String resourceType = resource.getResourceType();
+        if (resourceTypes.contains(resourceType)) {
+            return true;
+        }
+        if (resource.getResourceSuperType() != null) {
+            // the super type of the resource itself overrides the one of its resource type
+            return resourceTypes.stream().anyMatch(resource::isResourceType);
+        }
+        return matchingTypes.computeIfAbsent(resourceType, type -> resourceTypes.stream().anyMatch(resource::isResourceType));
+    }
+
+    private static String getCacheKey(Resource fromResource, Collection<String> resourceTypes) {
+        Calendar lastModified = fromResource.getValueMap().get(NameConstants.PN_PAGE_LAST_MOD, Calendar.class);
+        if (lastModified == null) {
+            lastModified = fromResource.getValueMap().get(JcrConstants.JCR_LASTMODIFIED, Calendar.class);
+        }
+        if (lastModified == null) {
+            return null;
+        }
+        return fromResource.getPath() + ";" + lastModified.getTimeInMillis() + ";" + String.join(",", resourceTypes);
+    }
 }
@@ -16,6 +16,14 @@
 package com.adobe.cq.commerce.core.components.internal.services;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -44,6 +52,7 @@ import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 import com.adobe.cq.commerce.core.components.services.urls.UrlProvider;
 import com.adobe.cq.commerce.core.components.utils.SiteNavigation;
 import com.adobe.cq.commerce.magento.graphql.CategoryInterface;
+import com.adobe.cq.commerce.magento.graphql.CategoryTree;
 import com.adobe.cq.commerce.magento.graphql.ProductInterface;
 import com.day.cq.wcm.api.Page;
 import com.day.cq.wcm.api.PageManager;
@@ -72,6 +81,12 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
             name = "Enabled",
             description = "If enabled, links edited with the Commerce Links RTE plugin are transformed to real links.")
         boolean isEnabled() default true;
+
+        @AttributeDefinition(
+            name = "Prefetch links",
+            description = "If enabled, the markup is buffered from the first commerce link on and all commerce links are resolved with one "
+                + "query per entity type at the end of the document. Otherwise each commerce link is resolved on its own.")
+        boolean isPrefetchEnabled() default true;
     }
 
     static final String MARKER_COMMERCE_LINKS = "#CommerceLinks";
@@ -85,11 +100,13 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
     @Reference
     private UrlProvider urlProvider;
     private boolean enabled;
+    private boolean prefetchEnabled;
 
     @Activate
     @Modified
     protected void activate(Configuration config) {
         enabled = config.isEnabled();
+        prefetchEnabled = config.isPrefetchEnabled();
         if (enabled) {
             LOGGER.info("Commerce links transformer enabled.");
         } else {
@@ -99,35 +116,180 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
 
     @Override
     public Transformer createTransformer() {
-        return enabled ? new CommerceLinksTransformer() : new DefaultTransformer();
+        return enabled ? new CommerceLinksTransformer(prefetchEnabled) : new DefaultTransformer();
+    }
+
+    /**
+     * A SAX event that is buffered until all commerce links of the document are resolved.
+     */
+    @FunctionalInterface
+    private interface BufferedEvent {
+        void replay() throws SAXException;
     }
 
     class CommerceLinksTransformer extends DefaultTransformer {
+        private final boolean prefetchEnabled;
         private SlingHttpServletRequest request;
         private boolean ignoreContent;
         private int elementsDepth;
 
+        private Page currentPage;
+        private Page productPage;
+        private Page categoryPage;
+
+        // events received after the first commerce link, null while not buffering
+        private List<BufferedEvent> bufferedEvents;
+        private final Set<String> productSkus = new LinkedHashSet<>();
+        private final Set<String> categoryUids = new LinkedHashSet<>();
+        private boolean replaceProductText;
+        private boolean replaceCategoryText;
+        // prefetched links, a null value means that the product or category was not found
+        private final Map<String, LinkInfo> productLinks = new HashMap<>();
+        private final Map<String, LinkInfo> categoryLinks = new HashMap<>();
+
+        CommerceLinksTransformer(boolean prefetchEnabled) {
+            this.prefetchEnabled = prefetchEnabled;
+        }
+
         @Override
         public void init(ProcessingContext context, ProcessingComponentConfiguration config) throws IOException {
             this.request = context.getRequest();
             ignoreContent = false;
             elementsDepth = 0;
+            currentPage = null;
+            productPage = null;
+            categoryPage = null;
+            bufferedEvents = null;
+            productSkus.clear();
+            categoryUids.clear();
+            replaceProductText = false;
+            replaceCategoryText = false;
+            productLinks.clear();
+            categoryLinks.clear();
         }
 
         @Override
         public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-            if (ignoreContent) {
-                elementsDepth++;
-                return;
+            if (prefetchEnabled && isCommerceLink(localName, attributes)) {
+                if (bufferedEvents == null) {
+                    bufferedEvents = new ArrayList<>();
+                }
+                collectCommerceLink(attributes);
             }
 
-            if (!ELEMENT_ANCHOR.equals(localName)) {
-                super.startElement(uri, localName, qName, attributes);
+            if (bufferedEvents != null) {
+                // the parser may reuse the attributes instance
+                Attributes attributesCopy = new AttributesImpl(attributes);
+                bufferedEvents.add(() -> transformStartElement(uri, localName, qName, attributesCopy));
+            } else {
+                transformStartElement(uri, localName, qName, attributes);
+            }
+        }
+
+        @Override
+        public void endElement(String s, String s1, String s2) throws SAXException {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(() -> transformEndElement(s, s1, s2));
+            } else {
+                transformEndElement(s, s1, s2);
+            }
+        }
+
+        @Override
+        public void characters(char[] ac, int i, int j) throws SAXException {
+            if (bufferedEvents != null) {
+                char[] chars = Arrays.copyOfRange(ac, i, i + j);
+                bufferedEvents.add(() -> transformCharacters(chars, 0, chars.length));
+            } else {
+                transformCharacters(ac, i, j);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ac, int i, int j) throws SAXException {
+            if (bufferedEvents != null) {
+                char[] chars = Arrays.copyOfRange(ac, i, i + j);
+                bufferedEvents.add(() -> super.ignorableWhitespace(chars, 0, chars.length));
+            } else {
+                super.ignorableWhitespace(ac, i, j);
+            }
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(() -> super.processingInstruction(target, data));
+            } else {
+                super.processingInstruction(target, data);
+            }
+        }
+
+        @Override
+        public void skippedEntity(String name) throws SAXException {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(() -> super.skippedEntity(name));
+            } else {
+                super.skippedEntity(name);
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(() -> super.startPrefixMapping(prefix, uri));
+            } else {
+                super.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) throws SAXException {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(() -> super.endPrefixMapping(prefix));
+            } else {
+                super.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if (bufferedEvents != null) {
+                prefetchProductLinks();
+                prefetchCategoryLinks();
+                List<BufferedEvent> events = bufferedEvents;
+                bufferedEvents = null;
+                for (BufferedEvent event : events) {
+                    event.replay();
+                }
+            }
+            super.endDocument();
+        }
+
+        private boolean isCommerceLink(String localName, Attributes attributes) {
+            return ELEMENT_ANCHOR.equals(localName) && MARKER_COMMERCE_LINKS.equals(StringUtils.trim(attributes.getValue(ATTR_HREF)));
+        }
+
+        private void collectCommerceLink(Attributes attributes) {
+            boolean replaceText = Boolean.parseBoolean(attributes.getValue(ATTR_REPLACE_TEXT));
+            String productSku = attributes.getValue(ATTR_PRODUCT_SKU);
+            String categoryUid = attributes.getValue(ATTR_CATEGORY_UID);
+            // if there is both product and category attribute on a link then product attribute is honored
+            if (StringUtils.isNotBlank(productSku)) {
+                productSkus.add(productSku);
+                replaceProductText |= replaceText;
+            } else if (StringUtils.isNotBlank(categoryUid)) {
+                categoryUids.add(categoryUid);
+                replaceCategoryText |= replaceText;
+            }
+        }
+
+        private void transformStartElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if (ignoreContent) {
+                elementsDepth++;
                 return;
             }
 
-            String href = StringUtils.trim(attributes.getValue(ATTR_HREF));
-            if (!MARKER_COMMERCE_LINKS.equals(href)) {
+            if (!isCommerceLink(localName, attributes)) {
                 super.startElement(uri, localName, qName, attributes);
                 return;
             }
@@ -137,26 +299,31 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
             String productSku = attributes.getValue(ATTR_PRODUCT_SKU);
             if (StringUtils.isNotBlank(productSku)) {
                 // if there is both product and category attribute on a link then product attribute is honored
-                Page currentPage = request.getResourceResolver().adaptTo(PageManager.class).getContainingPage(request.getResource());
-                Page productPage = SiteNavigation.getProductPage(currentPage);
-                if (replaceText) {
-                    linkInfo = prepareProductInfo(productSku, productPage);
+                if (productLinks.containsKey(productSku)) {
+                    linkInfo = getPrefetchedLink(productLinks, productSku, replaceText);
+                } else if (replaceText) {
+                    linkInfo = prepareProductInfo(productSku, getProductPage());
                 } else {
-                    linkInfo = new LinkInfo(urlProvider.toProductUrl(request, productPage, productSku));
+                    linkInfo = new LinkInfo(urlProvider.toProductUrl(request, getProductPage(), productSku));
                 }
             } else {
                 String categoryUid = attributes.getValue(ATTR_CATEGORY_UID);
                 if (StringUtils.isNotBlank(categoryUid)) {
-                    Page currentPage = request.getResourceResolver().adaptTo(PageManager.class).getContainingPage(request.getResource());
-                    Page categoryPage = SiteNavigation.getCategoryPage(currentPage);
-                    if (replaceText) {
-                        linkInfo = prepareCategoryInfo(categoryUid, categoryPage);
+                    if (categoryLinks.containsKey(categoryUid)) {
+                        linkInfo = getPrefetchedLink(categoryLinks, categoryUid, replaceText);
+                    } else if (replaceText) {
+                        linkInfo = prepareCategoryInfo(categoryUid, getCategoryPage());
                     } else {
-                        linkInfo = new LinkInfo(urlProvider.toCategoryUrl(request, categoryPage, categoryUid));
+                        linkInfo = new LinkInfo(urlProvider.toCategoryUrl(request, getCategoryPage(), categoryUid));
                     }
                 }
             }
 
+            if (linkInfo != null && !replaceText) {
+                // prefetched links may come with a title, which is only used if the text should be replaced
+                linkInfo = new LinkInfo(linkInfo.href);
+            }
+
             if (linkInfo != null && StringUtils.isNotBlank(linkInfo.href)) {
                 AttributesImpl newAttributes = new AttributesImpl(attributes);
                 newAttributes.setValue(attributes.getIndex(ATTR_HREF), linkInfo.href);
@@ -181,8 +348,7 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
             }
         }
 
-        @Override
-        public void endElement(String s, String s1, String s2) throws SAXException {
+        private void transformEndElement(String s, String s1, String s2) throws SAXException {
             if (ignoreContent) {
                 if (elementsDepth > 0) {
                     elementsDepth--;
@@ -196,13 +362,120 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
             }
         }
 
-        @Override
-        public void characters(char[] ac, int i, int j) throws SAXException {
+        private void transformCharacters(char[] ac, int i, int j) throws SAXException {
             if (!ignoreContent) {
                 super.characters(ac, i, j);
             }
         }
 
+        private LinkInfo getPrefetchedLink(Map<String, LinkInfo> links, String identifier, boolean replaceText) {
+            LinkInfo linkInfo = links.get(identifier);
+            // links of items that were not found are left unchanged if their text should be replaced
+            return !replaceText || (linkInfo != null && linkInfo.found) ? linkInfo : null;
+        }
+
+        private Page getCurrentPage() {
+            if (currentPage == null) {
+                currentPage = request.getResourceResolver().adaptTo(PageManager.class).getContainingPage(request.getResource());
+            }
+            return currentPage;
+        }
+
+        private Page getProductPage() {
+            if (productPage == null) {
+                productPage = SiteNavigation.getProductPage(getCurrentPage());
+            }
+            return productPage;
+        }
+
+        private Page getCategoryPage() {
+            if (categoryPage == null) {
+                categoryPage = SiteNavigation.getCategoryPage(getCurrentPage());
+            }
+            return categoryPage;
+        }
+
+        /**
+         * Resolves the links of all collected products at once. If the text of any of these links should be replaced, the product
+         * names are fetched along with the url parameters.
+         */
+        private void prefetchProductLinks() {
+            if (productSkus.isEmpty()) {
+                return;
+            }
+
+            if (!replaceProductText) {
+                urlProvider.toProductUrls(request, getProductPage(), productSkus)
+                    .forEach((productSku, url) -> productLinks.put(productSku, new LinkInfo(url)));
+                return;
+            }
+
+            MagentoGraphqlClient magentoGraphqlClient = request.adaptTo(MagentoGraphqlClient.class);
+            if (magentoGraphqlClient == null) {
+                LOGGER.debug("GraphQL client not found for {}", request.getResource().getPath());
+            } else {
+                ProductsUrlParameterRetriever productsRetriever = new ProductsUrlParameterRetriever(magentoGraphqlClient);
+                productsRetriever.extendProductQueryWith(q -> q.name());
+                productsRetriever.setIdentifiers(new ArrayList<>(productSkus));
+                for (ProductInterface product : productsRetriever.fetchProducts()) {
+                    if (productSkus.contains(product.getSku())) {
+                        ProductUrlFormat.Params urlParams = new ProductUrlFormat.Params(product);
+                        urlParams.setSku(product.getSku());
+                        productLinks.put(product.getSku(), new LinkInfo(urlProvider.toProductUrl(request, getProductPage(), urlParams),
+                            product.getName()));
+                    }
+                }
+            }
+
+            // products that were not found are linked by their sku only, but their link text cannot be replaced
+            List<String> missingSkus = productSkus.stream().filter(sku -> !productLinks.containsKey(sku)).collect(Collectors.toList());
+            if (!missingSkus.isEmpty()) {
+                urlProvider.toProductUrls(request, getProductPage(), missingSkus)
+                    .forEach((productSku, url) -> productLinks.put(productSku, LinkInfo.notFound(url)));
+            }
+        }
+
+        /**
+         * Resolves the links of all collected categories at once. If the text of any of these links should be replaced, the category
+         * names are fetched along with the url parameters.
+         */
+        private void prefetchCategoryLinks() {
+            if (categoryUids.isEmpty()) {
+                return;
+            }
+
+            if (!replaceCategoryText) {
+                urlProvider.toCategoryUrls(request, getCategoryPage(), categoryUids)
+                    .forEach((categoryUid, url) -> categoryLinks.put(categoryUid, new LinkInfo(url)));
+                return;
+            }
+
+            MagentoGraphqlClient magentoGraphqlClient = request.adaptTo(MagentoGraphqlClient.class);
+            if (magentoGraphqlClient == null) {
+                LOGGER.debug("GraphQL client not found for {}", request.getResource().getPath());
+            } else {
+                CategoriesUrlParameterRetriever categoriesRetriever = new CategoriesUrlParameterRetriever(magentoGraphqlClient);
+                categoriesRetriever.extendCategoryQueryWith(q -> q.name());
+                categoriesRetriever.setIdentifiers(new ArrayList<>(categoryUids));
+                for (CategoryTree category : categoriesRetriever.fetchCategories()) {
+                    String categoryUid = category.getUid() != null ? category.getUid().toString() : null;
+                    if (categoryUids.contains(categoryUid)) {
+                        CategoryUrlFormat.Params params = new CategoryUrlFormat.Params(category);
+                        params.setUid(categoryUid);
+                        categoryLinks.put(categoryUid, new LinkInfo(urlProvider.toCategoryUrl(request, getCategoryPage(), params),
+                            category.getName()));
+                    }
+                }
+            }
+
+            // categories that were not found are linked by their uid only, but their link text cannot be replaced
+            List<String> missingUids = categoryUids.stream().filter(uid -> !categoryLinks.containsKey(uid)).collect(Collectors.toList());
+            if (!missingUids.isEmpty()) {
+                urlProvider.toCategoryUrls(request, getCategoryPage(), missingUids)
+                    .forEach((categoryUid, url) -> categoryLinks.put(categoryUid, LinkInfo.notFound(url)));
+            }
+        }
+
         @Nullable
         private LinkInfo prepareProductInfo(String productSku, Page productPage) {
             MagentoGraphqlClient magentoGraphqlClient = request.adaptTo(MagentoGraphqlClient.class);
@@ -256,14 +529,24 @@ public class CommerceLinksTransformerFactory implements TransformerFactory {
 
         final String href;
         final String title;
+        final boolean found;
 
         LinkInfo(String href) {
             this(href, null);
         }
 
         LinkInfo(String href, String title) {
+            this(href, title, true);
+        }
+
+        private LinkInfo(String href, String title, boolean found) {
             this.href = href;
             this.title = title;
+            this.found = found;
+        }
+
+        static LinkInfo notFound(String href) {
+            return new LinkInfo(href, null, false);
         }
     }
 }
@@ -15,30 +15,75 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.adapter.AdapterFactory;
 import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.caconfig.ConfigurationBuilder;
+import org.apache.sling.caconfig.resource.ConfigurationResourceResolver;
 import org.apache.sling.serviceusermapping.ServiceUserMapped;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.cq.commerce.core.components.services.ComponentsConfiguration;
 import com.adobe.cq.wcm.launches.utils.LaunchUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 @Component(
-    service = { AdapterFactory.class },
+    service = { AdapterFactory.class, ResourceChangeListener.class },
     property = {
         AdapterFactory.ADAPTABLE_CLASSES + "=" + ComponentsConfigurationAdapterFactory.RESOURCE_CLASS_NAME,
-        AdapterFactory.ADAPTER_CLASSES + "=" + ComponentsConfigurationAdapterFactory.COMPONENTS_CONFIGURATION_CLASS_NAME })
-public class ComponentsConfigurationAdapterFactory implements AdapterFactory {
+        AdapterFactory.ADAPTER_CLASSES + "=" + ComponentsConfigurationAdapterFactory.COMPONENTS_CONFIGURATION_CLASS_NAME,
+        ResourceChangeListener.PATHS + "=/conf",
+        ResourceChangeListener.PATHS + "=/content",
+        ResourceChangeListener.PROPERTY_NAMES_HINT + "=sling:configRef",
+        ResourceChangeListener.PROPERTY_NAMES_HINT + "=cq:conf" })
+@Designate(ocd = ComponentsConfigurationAdapterFactory.Configuration.class)
+public class ComponentsConfigurationAdapterFactory implements AdapterFactory, ResourceChangeListener, ExternalResourceChangeListener {
+
+    @ObjectClassDefinition(name = "CIF Components Configuration Cache")
+    @interface Configuration {
+        @AttributeDefinition(
+            name = "Cache size",
+            description = "The maximum number of context paths for which the components configuration is cached across requests. The cache "
+                + "is invalidated when anything changes in /conf. Set to 0 to disable the cache.")
+        int cacheSize() default 100;
+
+        @AttributeDefinition(
+            name = "Resource cache size",
+            description = "The maximum number of resource paths for which the context path is cached across requests, so that cached "
+                + "configurations are found without logging in a service resource resolver. Cached paths are invalidated when a "
+                + "configuration reference in /content above them changes or when they are removed.")
+        int resourceCacheSize() default 1000;
+
+        @AttributeDefinition(
+            name = "Cache TTL",
+            description = "The time in seconds a components configuration is cached.")
+        int cacheTtl() default 600;
+    }
 
     protected static final String RESOURCE_CLASS_NAME = "org.apache.sling.api.resource.Resource";
     protected static final String COMPONENTS_CONFIGURATION_CLASS_NAME = "com.adobe.cq.commerce.core.components.services.ComponentsConfiguration";
@@ -50,19 +95,115 @@ public class ComponentsConfigurationAdapterFactory implements AdapterFactory {
 
     private static final String CONFIGURATION_NAME = "cloudconfigs/commerce";
 
+    private static final Set<String> CONFIG_REF_PROPERTY_NAMES = ImmutableSet.of("sling:configRef", "cq:conf");
+
     @Reference(target = "(" + ServiceUserMapped.SUBSERVICENAME + "=" + SUBSERVICE_NAME + ")")
     private ServiceUserMapped serviceUserMapped;
 
     @Reference
     private ResourceResolverFactory resolverFactory;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private ConfigurationResourceResolver configurationResourceResolver;
+
+    /**
+     * Caches the configurations by the context path they were resolved for across requests.
+     */
+    private volatile Cache<String, ComponentsConfiguration> configurationCache;
+
+    /**
+     * Caches the context paths by the resource paths they were resolved for, so that cached configurations are found without a service
+     * resource resolver login.
+     */
+    private volatile Cache<String, String> contextPathCache;
+
+    @Activate
+    @Modified
+    protected void activate(Configuration configuration) {
+        if (configuration.cacheSize() > 0) {
+            configurationCache = CacheBuilder.newBuilder()
+                .maximumSize(configuration.cacheSize())
+                .expireAfterWrite(Math.max(0, configuration.cacheTtl()), TimeUnit.SECONDS)
+                .build();
+            contextPathCache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, configuration.resourceCacheSize()))
+                .expireAfterWrite(Math.max(0, configuration.cacheTtl()), TimeUnit.SECONDS)
+                .build();
+        } else {
+            configurationCache = null;
+            contextPathCache = null;
+        }
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        Cache<String, String> pathCache = contextPathCache;
+        Cache<String, ComponentsConfiguration> cache = configurationCache;
+        for (ResourceChange change : changes) {
+            String path = change.getPath();
+            if (!path.startsWith("/content")) {
+                if (cache != null) {
+                    LOG.debug("Invalidating components configuration cache after change of {}", path);
+                    cache.invalidateAll();
+                }
+            } else if (pathCache != null && changesContext(change)) {
+                // the context of a page is defined by the configuration reference on the page or its content resource
+                int contentIndex = path.indexOf("/" + JcrConstants.JCR_CONTENT);
+                String root = contentIndex > 0 ? path.substring(0, contentIndex) : path;
+                LOG.debug("Invalidating components configuration context paths below {}", root);
+                pathCache.asMap().keySet().removeIf(key -> key.equals(root) || key.startsWith(root + "/"));
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given change in /content may move existing resources to another context. Changes that do not report their
+     * property names are treated as if they did.
+     */
+    private static boolean changesContext(ResourceChange change) {
+        switch (change.getType()) {
+            case REMOVED:
+                return true;
+            case ADDED:
+            case CHANGED:
+                Set<String> added = change.getAddedPropertyNames();
+                Set<String> changed = change.getChangedPropertyNames();
+                Set<String> removed = change.getRemovedPropertyNames();
+                if (added == null && changed == null && removed == null) {
+                    return true;
+                }
+                return changesConfigRef(added) || changesConfigRef(changed) || changesConfigRef(removed);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean changesConfigRef(Set<String> propertyNames) {
+        return propertyNames != null && propertyNames.stream().anyMatch(CONFIG_REF_PROPERTY_NAMES::contains);
+    }
+
     @Override
     public <AdapterType> AdapterType getAdapter(Object adaptable, Class<AdapterType> type) {
         if (!(adaptable instanceof Resource)) {
             return null;
         }
+
+        String resourcePath = ((Resource) adaptable).getPath();
+        Cache<String, String> pathCache = contextPathCache;
+        Cache<String, ComponentsConfiguration> cache = configurationCache;
+        if (pathCache != null && cache != null) {
+            String contextPath = pathCache.getIfPresent(resourcePath);
+            ComponentsConfiguration configuration = contextPath != null ? cache.getIfPresent(contextPath) : null;
+            if (configuration != null) {
+                return (AdapterType) configuration;
+            }
+        }
+
+        return (AdapterType) getConfiguration(resourcePath);
+    }
+
+    private ComponentsConfiguration getConfiguration(String resourcePath) {
         try (ResourceResolver serviceResolver = resolverFactory.getServiceResourceResolver(authInfo)) {
-            String resourcePath = ((Resource) adaptable).getPath();
             Resource resource = serviceResolver.getResource(resourcePath);
 
             if (resource == null) {
@@ -87,9 +228,25 @@ public class ComponentsConfigurationAdapterFactory implements AdapterFactory {
                 }
             }
 
+            // all resources with the same context path share the same configuration, resources without context use the fallback
+            Cache<String, ComponentsConfiguration> cache = configurationCache;
+            Cache<String, String> pathCache = contextPathCache;
+            String contextPath = null;
+            if (cache != null && pathCache != null && configurationResourceResolver != null) {
+                contextPath = StringUtils.defaultString(configurationResourceResolver.getContextPath(resource));
+                pathCache.put(resourcePath, contextPath);
+                ComponentsConfiguration configuration = cache.getIfPresent(contextPath);
+                if (configuration != null) {
+                    return configuration;
+                }
+            }
+
             ConfigurationBuilder cfgBuilder = resource.adaptTo(ConfigurationBuilder.class);
             ComponentsConfiguration configuration = new ComponentsConfiguration(cfgBuilder.name(CONFIGURATION_NAME).asValueMap());
-            return (AdapterType) configuration;
+            if (contextPath != null) {
+                cache.put(contextPath, configuration);
+            }
+            return configuration;
         } catch (LoginException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,189 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.sling.api.adapter.AdapterFactory;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.wcm.api.Page;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the paths of the generic pages resolved by {@link com.adobe.cq.commerce.core.components.utils.SiteNavigation} for a page and a
+ * page type property.
+ * <p>
+ * The paths are always cached for the lifetime of the resource resolver of the page, which is usually the lifetime of the request.
+ * Optionally they are also cached across requests. Both caches are invalidated by this listener whenever one of the page type properties
+ * changes, or a page outside of the DAM is removed or changed without reporting its properties.
+ * <p>
+ * {@link com.adobe.cq.commerce.core.components.utils.SiteNavigation} only gets a page, so it obtains the service by adapting the resource
+ * resolver of the page to this class.
+ */
+@Component(
+    service = { ResourceChangeListener.class, AdapterFactory.class },
+    property = {
+        AdapterFactory.ADAPTABLE_CLASSES + "=org.apache.sling.api.resource.ResourceResolver",
+        AdapterFactory.ADAPTER_CLASSES + "=com.adobe.cq.commerce.core.components.internal.services.GenericPageCache",
+        ResourceChangeListener.PATHS + "=/content",
+        ResourceChangeListener.CHANGES + "=ADDED",
+        ResourceChangeListener.CHANGES + "=CHANGED",
+        ResourceChangeListener.CHANGES + "=REMOVED"
+    })
+@Designate(ocd = GenericPageCacheConfiguration.class)
+public class GenericPageCache implements ResourceChangeListener, ExternalResourceChangeListener, AdapterFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenericPageCache.class);
+
+    // the page type properties defined in SiteNavigation
+    static final Set<String> PAGE_TYPE_PROPERTIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "cq:cifProductPage", "cq:cifCategoryPage", "cq:cifSearchResultsPage")));
+
+    private static final String NOT_FOUND = "";
+    private static final String DAM_ROOT = "/content/dam/";
+    private static final String PAGE_CONTENT_PATH = "/" + JcrConstants.JCR_CONTENT + "/";
+
+    // The resolvers are only weakly referenced so that the cached paths do not outlive them. The cache must not reference the resolver
+    // in its values, this is why only paths are cached. SiteNavigation only gets the page, so the cache cannot live in a request attribute.
+    private final Cache<ResourceResolver, Map<String, String>> resolverCaches = CacheBuilder.newBuilder().weakKeys().build();
+
+    private volatile Cache<String, String> sharedCache;
+
+    @Activate
+    @Modified
+    protected void activate(GenericPageCacheConfiguration configuration) {
+        if (configuration.cacheSize() > 0) {
+            sharedCache = CacheBuilder.newBuilder()
+                .maximumSize(configuration.cacheSize())
+                .expireAfterWrite(Math.max(0, configuration.cacheTtl()), TimeUnit.SECONDS)
+                .build();
+        } else {
+            sharedCache = null;
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        sharedCache = null;
+        resolverCaches.invalidateAll();
+    }
+
+    @Override
+    public <AdapterType> AdapterType getAdapter(Object adaptable, Class<AdapterType> type) {
+        if (adaptable instanceof ResourceResolver && type == GenericPageCache.class) {
+            return type.cast(this);
+        }
+        return null;
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        for (ResourceChange change : changes) {
+            if (invalidates(change)) {
+                LOGGER.debug("Invalidating generic page cache after change of {}", change.getPath());
+                Cache<String, String> cache = sharedCache;
+                if (cache != null) {
+                    cache.invalidateAll();
+                }
+                resolverCaches.invalidateAll();
+                return;
+            }
+        }
+    }
+
+    private static boolean invalidates(ResourceChange change) {
+        String path = change.getPath();
+        if (path.startsWith(DAM_ROOT)) {
+            return false;
+        }
+        if (changesPageTypeProperty(change.getAddedPropertyNames())
+            || changesPageTypeProperty(change.getChangedPropertyNames())
+            || changesPageTypeProperty(change.getRemovedPropertyNames())) {
+            return true;
+        }
+        // The properties are defined on the content of pages, removed pages may have defined them for their descendants. Changes of
+        // resources below the content of a page, like components, never affect the generic pages.
+        boolean unknownProperties = change.getAddedPropertyNames() == null && change.getChangedPropertyNames() == null
+            && change.getRemovedPropertyNames() == null;
+        return (unknownProperties || change.getType() == ResourceChange.ChangeType.REMOVED) && !path.contains(PAGE_CONTENT_PATH);
+    }
+
+    private static boolean changesPageTypeProperty(Set<String> propertyNames) {
+        return propertyNames != null && propertyNames.stream().anyMatch(PAGE_TYPE_PROPERTIES::contains);
+    }
+
+    /**
+     * Returns the path of the generic page for the given page and page type property, resolving and caching it if it is not cached yet.
+     *
+     * @param pageTypeProperty The name of the JCR property that points to the generic page
+     * @param page the page for looking up the property
+     * @param resolver resolves the path of the generic page, may return {@code null}
+     * @return the path of the generic page or {@code null}
+     */
+    public String getGenericPagePath(String pageTypeProperty, Page page, Supplier<String> resolver) {
+        Resource contentResource = page.getContentResource();
+        ResourceResolver resourceResolver = contentResource != null ? contentResource.getResourceResolver() : null;
+        if (resourceResolver == null || page.getPath() == null) {
+            return resolver.get();
+        }
+
+        String key = pageTypeProperty + ':' + page.getPath();
+        Map<String, String> resolverCache;
+        try {
+            resolverCache = resolverCaches.get(resourceResolver, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            return resolver.get();
+        }
+        String path = resolverCache.get(key);
+        if (path == null) {
+            Cache<String, String> cache = sharedCache;
+            path = cache != null ? cache.getIfPresent(key) : null;
+            if (path == null) {
+                path = resolver.get();
+                path = path != null ? path : NOT_FOUND;
+                if (cache != null) {
+                    cache.put(key, path);
+                }
+            }
+            resolverCache.put(key, path);
+        }
+
+        return NOT_FOUND.equals(path) ? null : path;
+    }
+}
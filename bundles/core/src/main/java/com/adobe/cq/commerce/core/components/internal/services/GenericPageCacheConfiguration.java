@@ -0,0 +1,35 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.services;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+@ObjectClassDefinition(name = "CIF Generic Page Cache")
+public @interface GenericPageCacheConfiguration {
+
+    @AttributeDefinition(
+        name = "Cache size",
+        description = "The maximum number of generic product, category and search results page paths cached across requests. The cache is "
+            + "invalidated when any of the cq:cifProductPage, cq:cifCategoryPage or cq:cifSearchResultsPage properties change. It must "
+            + "only be enabled if these properties are readable by all users. Set to 0 to disable the cache.")
+    int cacheSize() default 0;
+
+    @AttributeDefinition(
+        name = "Cache TTL",
+        description = "The time in seconds a generic page path is cached.")
+    int cacheTtl() default 600;
+}
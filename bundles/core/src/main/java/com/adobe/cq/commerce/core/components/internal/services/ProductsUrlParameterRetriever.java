@@ -0,0 +1,59 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.services;
+
+import java.util.List;
+
+import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.models.retriever.AbstractProductsRetriever;
+import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
+import com.adobe.cq.commerce.magento.graphql.Operations;
+import com.adobe.cq.commerce.magento.graphql.ProductAttributeFilterInput;
+import com.adobe.cq.commerce.magento.graphql.ProductInterfaceQuery;
+import com.adobe.cq.commerce.magento.graphql.ProductInterfaceQueryDefinition;
+import com.adobe.cq.commerce.magento.graphql.ProductsQueryDefinition;
+import com.adobe.cq.commerce.magento.graphql.QueryQuery;
+
+class ProductsUrlParameterRetriever extends AbstractProductsRetriever {
+
+    ProductsUrlParameterRetriever(MagentoGraphqlClient client) {
+        super(client);
+    }
+
+    @Override
+    protected String generateQuery(List<String> identifiers) {
+        // the page size must be large enough to return all products at once
+        FilterEqualTypeInput skuFilter = new FilterEqualTypeInput().setIn(identifiers);
+        ProductAttributeFilterInput filter = new ProductAttributeFilterInput().setSku(skuFilter);
+        QueryQuery.ProductsArgumentsDefinition searchArgs = s -> s.filter(filter).pageSize(identifiers.size());
+
+        ProductsQueryDefinition queryArgs = q -> q.items(generateProductQuery());
+        return Operations.query(query -> query
+            .products(searchArgs, queryArgs)).toString();
+    }
+
+    @Override
+    protected ProductInterfaceQueryDefinition generateProductQuery() {
+        return (ProductInterfaceQuery q) -> {
+            q.sku().urlKey().urlPath().urlRewrites(uq -> uq.url());
+
+            // Apply product query hook
+            if (productQueryHook != null) {
+                productQueryHook.accept(q);
+            }
+        };
+    }
+}
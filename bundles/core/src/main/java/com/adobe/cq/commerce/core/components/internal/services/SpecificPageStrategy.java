@@ -15,10 +15,15 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -26,6 +31,9 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
@@ -39,14 +47,21 @@ import com.adobe.cq.commerce.core.components.models.productlist.ProductList;
 import com.adobe.cq.commerce.core.components.services.urls.UrlProvider;
 import com.day.cq.commons.jcr.JcrConstants;
 import com.day.cq.wcm.api.NameConstants;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * This Component is used by the {@link UrlProviderImpl} to get a specific page for a given product page. If it is not enabled the
  * {@link UrlProviderImpl} will not create links to specific pages.
+ * <p>
+ * The selector filters of the specific pages below a generic page are read once into an index, which is kept until anything changes
+ * below the generic page.
  */
-@Component(service = SpecificPageStrategy.class)
+@Component(
+    service = { SpecificPageStrategy.class, ResourceChangeListener.class },
+    property = { ResourceChangeListener.PATHS + "=/content" })
 @Designate(ocd = SpecificPageStrategy.Configuration.class)
-public class SpecificPageStrategy {
+public class SpecificPageStrategy implements ResourceChangeListener, ExternalResourceChangeListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SpecificPageStrategy.class);
     private static final String SELECTOR_FILTER_PROPERTY = "selectorFilter";
@@ -63,13 +78,40 @@ public class SpecificPageStrategy {
                 + "pages and return the path to it if available. If disabled, the CIF Url Provider will return the generic product page path "
                 + "in any case. Defaults to disabled")
         boolean generateSpecificPageUrls() default false;
+
+        @AttributeDefinition(
+            name = "Index size",
+            description = "The maximum number of generic pages for which the selector filters of their specific pages are kept in memory. "
+                + "The index of a generic page is invalidated when anything changes below it. Set to 0 to disable the index.")
+        int indexSize() default 100;
     }
 
     private boolean generateSpecificPageUrls;
+    private volatile Cache<List<String>, SpecificPageIndex> indexes;
 
     @Activate
     public void activate(Configuration configuration) {
         generateSpecificPageUrls = configuration.generateSpecificPageUrls();
+        indexes = configuration.indexSize() > 0
+            ? CacheBuilder.newBuilder().maximumSize(configuration.indexSize()).build()
+            : null;
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        Cache<List<String>, SpecificPageIndex> cache = indexes;
+        if (cache == null) {
+            return;
+        }
+
+        for (ResourceChange change : changes) {
+            String path = change.getPath();
+            // changes below a generic page or of one of its ancestors, which may have been moved or removed
+            cache.asMap().keySet().removeIf(key -> {
+                String pagePath = key.get(0);
+                return path.startsWith(pagePath + "/") || pagePath.equals(path) || pagePath.startsWith(path + "/");
+            });
+        }
     }
 
     /**
@@ -93,30 +135,88 @@ public class SpecificPageStrategy {
      *         null.
      */
     public Resource getSpecificPage(Resource page, Set<String> selectors, SlingHttpServletRequest request, Map<String, String> params) {
-        ProductList productList = null;
-        String currentUrlPath = null;
-        Iterable<Resource> children = page != null ? page.getChildren() : Collections.emptyList();
+        if (page == null) {
+            return null;
+        }
 
-        for (Resource child : children) {
-            if (!NameConstants.NT_PAGE.equals(child.getResourceType())) {
-                continue;
+        // The currentUrlPath being processed is either coming from:
+        // 1) the ProductList model when a category page is being rendered
+        // 2) the params map when the any model renders a category link
+        Supplier<String> currentUrlPath = () -> {
+            if (params != null && params.containsKey(UrlProvider.URL_PATH_PARAM)) {
+                return params.get(UrlProvider.URL_PATH_PARAM);
+            } else if (request != null) {
+                ProductList productList = request.adaptTo(ProductList.class);
+                if (productList instanceof ProductListImpl) {
+                    return ((ProductListImpl) productList).getUrlPath();
+                }
             }
+            return null;
+        };
 
-            if (child.hasChildren()) {
-                final Resource grandChild = getSpecificPage(child, selectors, request, params);
-                if (grandChild != null) {
-                    return grandChild;
+        Cache<List<String>, SpecificPageIndex> cache = indexes;
+        if (cache != null) {
+            try {
+                // the index only contains the pages readable by the user it was built for
+                List<String> key = Arrays.asList(page.getPath(), page.getResourceResolver().getUserID());
+                String path = cache.get(key, () -> SpecificPageIndex.build(page)).find(selectors, currentUrlPath);
+                Resource specificPage = path != null ? page.getResourceResolver().getResource(path) : null;
+                if (specificPage != null || path == null) {
+                    return specificPage;
                 }
+                // the specific page is not accessible with the current resource resolver
+            } catch (ExecutionException e) {
+                LOGGER.warn("Failed to index the specific pages of {}", page.getPath(), e);
             }
+        }
+
+        String path = SpecificPageIndex.build(page).find(selectors, currentUrlPath);
+        return path != null ? page.getResourceResolver().getResource(path) : null;
+    }
+
+    /**
+     * The selector filters of all specific pages below a generic page, in the order they are matched: depth-first with the descendants of
+     * a page before the page itself.
+     */
+    private static class SpecificPageIndex {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<String, Integer> entriesBySelector = new HashMap<>();
+        private final List<Integer> subCategoryEntries = new ArrayList<>();
+
+        private static SpecificPageIndex build(Resource page) {
+            SpecificPageIndex index = new SpecificPageIndex();
+            index.addChildren(page);
+            return index;
+        }
+
+        private void addChildren(Resource page) {
+            for (Resource child : page.getChildren()) {
+                if (!NameConstants.NT_PAGE.equals(child.getResourceType())) {
+                    continue;
+                }
+
+                if (child.hasChildren()) {
+                    addChildren(child);
+                }
 
-            Resource jcrContent = child.getChild(JcrConstants.JCR_CONTENT);
-            if (jcrContent == null) {
-                continue;
+                Resource jcrContent = child.getChild(JcrConstants.JCR_CONTENT);
+                Set<String> selectorFilterSet = jcrContent != null ? getSelectorFilters(jcrContent) : Collections.emptySet();
+                if (!selectorFilterSet.isEmpty()) {
+                    int position = entries.size();
+                    boolean includesSubCategories = jcrContent.getValueMap().get(INCLUDES_SUBCATEGORIES_PROPERTY, false);
+                    entries.add(new Entry(child.getPath(), selectorFilterSet));
+                    selectorFilterSet.forEach(selector -> entriesBySelector.putIfAbsent(selector, position));
+                    if (includesSubCategories) {
+                        subCategoryEntries.add(position);
+                    }
+                }
             }
+        }
 
+        private static Set<String> getSelectorFilters(Resource jcrContent) {
             Object filter = jcrContent.getValueMap().get(SELECTOR_FILTER_PROPERTY);
             if (filter == null) {
-                continue;
+                return Collections.emptySet();
             }
 
             // get the filterType property set by the picker
@@ -136,43 +236,55 @@ public class SpecificPageStrategy {
                         : s);
             }
 
-            Set<String> selectorFilterSet = selectorFilterStream.filter(StringUtils::isNotEmpty).collect(Collectors.toSet());
+            return selectorFilterStream.filter(StringUtils::isNotEmpty).collect(Collectors.toSet());
+        }
 
-            if (!selectorFilterSet.isEmpty()) {
-                for (String selector : selectors) {
-                    if (selectorFilterSet.contains(selector)) {
-                        LOGGER.debug("Page has a matching sub-page for selector {} at {}", selector, child.getPath());
-                        return child;
-                    }
+        /**
+         * Returns the path of the first specific page matching any of the given selectors or, if it includes sub-categories, being a
+         * parent category of the current url_path.
+         */
+        private String find(Set<String> selectors, Supplier<String> currentUrlPathSupplier) {
+            int found = entries.size();
+            for (String selector : selectors) {
+                Integer position = entriesBySelector.get(selector);
+                if (position != null && position < found) {
+                    found = position;
                 }
+            }
 
-                boolean includesSubCategories = jcrContent.getValueMap().get(INCLUDES_SUBCATEGORIES_PROPERTY, false);
-                if (includesSubCategories) {
-                    // The currentUrlPath being processed is either coming from:
-                    // 1) the ProductList model when a category page is being rendered
-                    // 2) the params map when the any model renders a category link
-
-                    if (currentUrlPath == null) {
-                        if (params != null && params.containsKey(UrlProvider.URL_PATH_PARAM)) {
-                            currentUrlPath = params.get(UrlProvider.URL_PATH_PARAM);
-                        } else if (request != null && productList == null) {
-                            productList = request.adaptTo(ProductList.class);
-                            if (productList instanceof ProductListImpl) {
-                                currentUrlPath = ((ProductListImpl) productList).getUrlPath();
-                            }
-                        }
-                    }
-
-                    for (String urlPath : selectorFilterSet) {
-                        if (StringUtils.startsWith(currentUrlPath, urlPath + "/")) {
-                            LOGGER.debug("Page has a matching sub-page for url_path {} at {}", urlPath, child.getPath());
-                            return child;
-                        }
+            String currentUrlPath = null;
+            boolean currentUrlPathResolved = false;
+            for (int position : subCategoryEntries) {
+                if (position >= found) {
+                    break;
+                }
+                if (!currentUrlPathResolved) {
+                    currentUrlPath = currentUrlPathSupplier.get();
+                    currentUrlPathResolved = true;
+                }
+                for (String urlPath : entries.get(position).selectorFilters) {
+                    if (StringUtils.startsWith(currentUrlPath, urlPath + "/")) {
+                        LOGGER.debug("Page has a matching sub-page for url_path {} at {}", urlPath, entries.get(position).path);
+                        return entries.get(position).path;
                     }
                 }
             }
+
+            if (found < entries.size()) {
+                LOGGER.debug("Page has a matching sub-page for selectors {} at {}", selectors, entries.get(found).path);
+                return entries.get(found).path;
+            }
+            return null;
         }
+    }
 
-        return null;
+    private static class Entry {
+        private final String path;
+        private final Set<String> selectorFilters;
+
+        private Entry(String path, Set<String> selectorFilters) {
+            this.path = path;
+            this.selectorFilters = selectorFilters;
+        }
     }
 }
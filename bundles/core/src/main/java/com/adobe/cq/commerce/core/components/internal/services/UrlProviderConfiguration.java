@@ -64,4 +64,25 @@ public @interface UrlProviderConfiguration {
                 value = CategoryPageWithUrlPath.PATTERN)
         })
     String categoryPageUrlFormat() default CategoryPageWithUrlPath.PATTERN;
+
+    @AttributeDefinition(
+        name = "Identifier cache size",
+        description = "The maximum number of product url_key to sku and category url_path to uid mappings cached across requests. Set to "
+            + "0 to disable the cache.")
+    int identifierCacheSize() default 1000;
+
+    @AttributeDefinition(
+        name = "Identifier cache TTL",
+        description = "The time in seconds a resolved product sku or category uid is cached.")
+    int identifierCacheTtl() default 600;
+
+    @AttributeDefinition(
+        name = "Identifier cache TTL for missing entries",
+        description = "The time in seconds a product url_key or category url_path that could not be resolved is cached.")
+    int identifierCacheMissingTtl() default 60;
+
+    @AttributeDefinition(
+        name = "Identifier cache TTL for existing entries",
+        description = "The time in seconds a product sku or category uid is cached as existing after it was checked for a catalog page.")
+    int identifierCacheExistsTtl() default 60;
 }
@@ -15,11 +15,21 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
@@ -37,6 +47,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.MagentoGraphqlClientCacheKey;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.core.components.internal.services.urlformats.CategoryPageUrlFormatAdapter;
 import com.adobe.cq.commerce.core.components.internal.services.urlformats.CategoryPageWithUrlKey;
 import com.adobe.cq.commerce.core.components.internal.services.urlformats.CategoryPageWithUrlPath;
@@ -50,10 +62,22 @@ import com.adobe.cq.commerce.core.components.services.urls.CategoryUrlFormat;
 import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 import com.adobe.cq.commerce.core.components.services.urls.UrlFormat;
 import com.adobe.cq.commerce.core.components.services.urls.UrlProvider;
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.CategoryFilterInput;
 import com.adobe.cq.commerce.magento.graphql.CategoryInterface;
+import com.adobe.cq.commerce.magento.graphql.CategoryTree;
+import com.adobe.cq.commerce.magento.graphql.CategoryTreeQuery;
+import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
+import com.adobe.cq.commerce.magento.graphql.Operations;
+import com.adobe.cq.commerce.magento.graphql.ProductAttributeFilterInput;
 import com.adobe.cq.commerce.magento.graphql.ProductInterface;
+import com.adobe.cq.commerce.magento.graphql.ProductInterfaceQuery;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
 import com.adobe.cq.dam.cfm.content.FragmentRenderService;
 import com.day.cq.wcm.api.Page;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 @Component(service = { UrlProvider.class, UrlProviderImpl.class })
 @Designate(ocd = UrlProviderConfiguration.class)
@@ -92,6 +116,8 @@ public class UrlProviderImpl implements UrlProvider {
     };
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UrlProviderImpl.class);
+    private static final Object PRODUCT_EXISTS_QUERY = Arrays.asList(UrlProviderImpl.class.getName(), "product");
+    private static final Object CATEGORY_EXISTS_QUERY = Arrays.asList(UrlProviderImpl.class.getName(), "category");
 
     @Reference(
         cardinality = ReferenceCardinality.OPTIONAL,
@@ -121,8 +147,35 @@ public class UrlProviderImpl implements UrlProvider {
     @Reference
     private SpecificPageStrategy specificPageStrategy;
 
+    /**
+     * Caches the product skus and category uids resolved from url_keys and url_paths across requests.
+     */
+    private Cache<String, String> identifierCache;
+    /**
+     * Caches the url_keys and url_paths that could not be resolved to a product sku or category uid across requests.
+     */
+    private Cache<String, Boolean> missingIdentifierCache;
+    /**
+     * Caches the product skus and category uids that were found by the existence checks across requests.
+     */
+    private Cache<String, Boolean> existingIdentifierCache;
+
     @Activate
     public void activate(UrlProviderConfiguration conf) {
+        if (conf.identifierCacheSize() > 0) {
+            identifierCache = CacheBuilder.newBuilder()
+                .maximumSize(conf.identifierCacheSize())
+                .expireAfterWrite(Math.max(0, conf.identifierCacheTtl()), TimeUnit.SECONDS)
+                .build();
+            missingIdentifierCache = CacheBuilder.newBuilder()
+                .maximumSize(conf.identifierCacheSize())
+                .expireAfterWrite(Math.max(0, conf.identifierCacheMissingTtl()), TimeUnit.SECONDS)
+                .build();
+            existingIdentifierCache = CacheBuilder.newBuilder()
+                .maximumSize(conf.identifierCacheSize())
+                .expireAfterWrite(Math.max(0, conf.identifierCacheExistsTtl()), TimeUnit.SECONDS)
+                .build();
+        }
         if (newProductUrlFormat == null) {
             if (productPageUrlFormat != null) {
                 newProductUrlFormat = new ProductPageUrlFormatAdapter(productPageUrlFormat);
@@ -147,6 +200,9 @@ public class UrlProviderImpl implements UrlProvider {
         newProductUrlFormat = null;
         categoryPageUrlFormat = null;
         newCategoryUrlFormat = null;
+        identifierCache = null;
+        missingIdentifierCache = null;
+        existingIdentifierCache = null;
     }
 
     @Override
@@ -181,12 +237,7 @@ public class UrlProviderImpl implements UrlProvider {
     @Override
     public String toProductUrl(SlingHttpServletRequest request, Page page, ProductUrlFormat.Params params) {
         if (page != null) {
-            Map<String, String> paramsMap = params.asMap();
-            Set<String> searchValues = new HashSet<>();
-            // compatible to the previous implementation, may be removed
-            searchValues.addAll(paramsMap.values());
-
-            String pageParam = getPageParam(page, searchValues, request, params.asMap());
+            String pageParam = getPageParam(page, request, params::asMap);
             if (!pageParam.equals(params.getPage())) {
                 params = new ProductUrlFormat.Params(params);
                 params.setPage(pageParam);
@@ -196,6 +247,67 @@ public class UrlProviderImpl implements UrlProvider {
         return newProductUrlFormat.format(params);
     }
 
+    @Override
+    public Map<String, String> toProductUrls(SlingHttpServletRequest request, Page page, Collection<String> productIdentifiers) {
+        Map<String, ProductUrlFormat.Params> paramsByIdentifier = new LinkedHashMap<>();
+        for (String productIdentifier : productIdentifiers) {
+            ProductUrlFormat.Params params = new ProductUrlFormat.Params();
+            if (StringUtils.isNotBlank(productIdentifier)) {
+                params.setSku(productIdentifier);
+            }
+            paramsByIdentifier.put(productIdentifier, params);
+        }
+
+        List<String> skus = paramsByIdentifier.keySet().stream().filter(StringUtils::isNotBlank).collect(Collectors.toList());
+        // assume that any other format then the ProductPageWithSku requires more parameters
+        if (!skus.isEmpty() && !(newProductUrlFormat instanceof ProductPageWithSku)) {
+            MagentoGraphqlClient magentoGraphqlClient = request != null ? request.adaptTo(MagentoGraphqlClient.class) : null;
+            if (magentoGraphqlClient != null) {
+                ProductsUrlParameterRetriever retriever = new ProductsUrlParameterRetriever(magentoGraphqlClient);
+                retriever.setIdentifiers(skus);
+                for (ProductInterface product : retriever.fetchProducts()) {
+                    ProductUrlFormat.Params params = paramsByIdentifier.get(product.getSku());
+                    if (params != null) {
+                        params.setUrlKey(product.getUrlKey());
+                        params.setUrlPath(product.getUrlPath());
+                    }
+                }
+            }
+        }
+
+        Map<String, String> urls = new LinkedHashMap<>();
+        paramsByIdentifier.forEach((productIdentifier, params) -> urls.put(productIdentifier, toProductUrl(request, page, params)));
+        return urls;
+    }
+
+    @Override
+    public Map<String, String> toCategoryUrls(SlingHttpServletRequest request, Page page, Collection<String> categoryIdentifiers) {
+        Map<String, CategoryUrlFormat.Params> paramsByIdentifier = new LinkedHashMap<>();
+        for (String categoryIdentifier : categoryIdentifiers) {
+            CategoryUrlFormat.Params params = new CategoryUrlFormat.Params();
+            params.setUid(categoryIdentifier);
+            paramsByIdentifier.put(categoryIdentifier, params);
+        }
+
+        List<String> uids = paramsByIdentifier.keySet().stream().filter(StringUtils::isNotBlank).collect(Collectors.toList());
+        MagentoGraphqlClient magentoGraphqlClient = request != null ? request.adaptTo(MagentoGraphqlClient.class) : null;
+        if (magentoGraphqlClient != null && !uids.isEmpty()) {
+            CategoriesUrlParameterRetriever retriever = new CategoriesUrlParameterRetriever(magentoGraphqlClient);
+            retriever.setIdentifiers(uids);
+            for (CategoryTree category : retriever.fetchCategories()) {
+                CategoryUrlFormat.Params params = category.getUid() != null ? paramsByIdentifier.get(category.getUid().toString()) : null;
+                if (params != null) {
+                    params.setUrlKey(category.getUrlKey());
+                    params.setUrlPath(category.getUrlPath());
+                }
+            }
+        }
+
+        Map<String, String> urls = new LinkedHashMap<>();
+        paramsByIdentifier.forEach((categoryIdentifier, params) -> urls.put(categoryIdentifier, toCategoryUrl(request, page, params)));
+        return urls;
+    }
+
     @Override
     public String toCategoryUrl(SlingHttpServletRequest request, Page page, Map<String, String> params) {
         return toCategoryUrl(request, page, new CategoryUrlFormat.Params(params));
@@ -224,11 +336,7 @@ public class UrlProviderImpl implements UrlProvider {
     @Override
     public String toCategoryUrl(SlingHttpServletRequest request, @Nullable Page page, CategoryUrlFormat.Params params) {
         if (page != null) {
-            Map<String, String> paramsMap = params.asMap();
-            Set<String> searchValues = new HashSet<>();
-            // compatible to the previous implementation, may be removed
-            searchValues.addAll(paramsMap.values());
-            String pageParam = getPageParam(page, searchValues, request, params.asMap());
+            String pageParam = getPageParam(page, request, params::asMap);
             if (!pageParam.equals(params.getPage())) {
                 params = new CategoryUrlFormat.Params(params);
                 params.setPage(pageParam);
@@ -238,11 +346,15 @@ public class UrlProviderImpl implements UrlProvider {
         return newCategoryUrlFormat.format(params);
     }
 
-    private String getPageParam(Page page, Set<String> searchValues, SlingHttpServletRequest request, Map<String, String> params) {
+    private String getPageParam(Page page, SlingHttpServletRequest request, Supplier<Map<String, String>> paramsSupplier) {
         // enable rendering of deep links only on author
         boolean deepLinkSpecificPages = specificPageStrategy.isGenerateSpecificPageUrlsEnabled();
 
         if (deepLinkSpecificPages) {
+            // the parameters are only converted to a map when specific pages are looked up
+            Map<String, String> params = paramsSupplier.get();
+            // compatible to the previous implementation, may be removed
+            Set<String> searchValues = new HashSet<>(params.values());
             Resource subPageResource = specificPageStrategy.getSpecificPage(page.adaptTo(Resource.class), searchValues, request, params);
             if (subPageResource != null) {
                 return subPageResource.getPath();
@@ -276,8 +388,10 @@ public class UrlProviderImpl implements UrlProvider {
             if (magentoGraphqlClient != null) {
                 UrlToProductRetriever productRetriever = new UrlToProductRetriever(magentoGraphqlClient);
                 productRetriever.setIdentifier(productIdentifiers.getUrlKey());
-                ProductInterface product = productRetriever.fetchProduct();
-                identifier = product != null ? product.getSku() : null;
+                identifier = resolveIdentifier("product", magentoGraphqlClient, productIdentifiers.getUrlKey(), () -> {
+                    ProductInterface product = productRetriever.fetchProduct();
+                    return product != null ? product.getSku() : null;
+                }, productRetriever::hasErrors);
             } else {
                 LOGGER.warn("No backend GraphQL client provided, cannot retrieve product identifier for {}", request.getRequestURL()
                     .toString());
@@ -314,8 +428,10 @@ public class UrlProviderImpl implements UrlProvider {
             if (magentoGraphqlClient != null) {
                 UrlToCategoryRetriever categoryRetriever = new UrlToCategoryRetriever(magentoGraphqlClient);
                 categoryRetriever.setIdentifier(categoryIdentifiers.getUrlKey());
-                CategoryInterface category = categoryRetriever.fetchCategory();
-                identifier = category != null ? category.getUid().toString() : null;
+                identifier = resolveIdentifier("category", magentoGraphqlClient, categoryIdentifiers.getUrlKey(), () -> {
+                    CategoryInterface category = categoryRetriever.fetchCategory();
+                    return category != null ? category.getUid().toString() : null;
+                }, categoryRetriever::hasErrors);
             } else {
                 LOGGER.warn("No backend GraphQL client provided, cannot retrieve product identifier for {}", request.getRequestURL()
                     .toString());
@@ -329,6 +445,111 @@ public class UrlProviderImpl implements UrlProvider {
         return identifier;
     }
 
+    /**
+     * Checks if the product of the given request exists, without fetching any product data. The sku of the product, either from the URL
+     * or looked up by its url_key, is checked with a query that only fetches the sku. The result is cached across requests for the
+     * short time configured for existing and missing entries, so that removed products are soon reported as missing.
+     *
+     * @param request The current Sling HTTP request.
+     * @return {@code true} if the product exists, {@code false} if not or {@code null} if it could not be checked
+     */
+    @Nullable
+    public Boolean productExists(SlingHttpServletRequest request) {
+        String sku = getProductIdentifier(request);
+        if (StringUtils.isEmpty(sku)) {
+            return Boolean.FALSE;
+        }
+
+        String query = QueryTemplates.generate(PRODUCT_EXISTS_QUERY, sku, identifier -> Operations.query(q -> q.products(
+            args -> args.filter(new ProductAttributeFilterInput().setSku(new FilterEqualTypeInput().setEq(identifier))),
+            products -> products.items(ProductInterfaceQuery::sku))).toString());
+        return exists("product-sku", request, sku, query, data -> data.getProducts() != null && CollectionUtils.isNotEmpty(data
+            .getProducts().getItems()));
+    }
+
+    /**
+     * Checks if the category of the given request exists, without fetching any category data. The uid of the category, either from the
+     * URL or looked up by its url_path, is checked with a query that only fetches the uid. The result is cached across requests for the
+     * short time configured for existing and missing entries, so that removed categories are soon reported as missing.
+     *
+     * @param request The current Sling HTTP request.
+     * @return {@code true} if the category exists, {@code false} if not or {@code null} if it could not be checked
+     */
+    @Nullable
+    public Boolean categoryExists(SlingHttpServletRequest request) {
+        String uid = getCategoryIdentifier(request);
+        if (StringUtils.isEmpty(uid)) {
+            return Boolean.FALSE;
+        }
+
+        String query = QueryTemplates.generate(CATEGORY_EXISTS_QUERY, uid, identifier -> Operations.query(q -> q.categoryList(
+            args -> args.filters(new CategoryFilterInput().setCategoryUid(new FilterEqualTypeInput().setEq(identifier))),
+            CategoryTreeQuery::uid)).toString());
+        return exists("category-uid", request, uid, query, data -> CollectionUtils.isNotEmpty(data.getCategoryList()));
+    }
+
+    private Boolean exists(String type, SlingHttpServletRequest request, String identifier, String query, Predicate<Query> found) {
+        MagentoGraphqlClient magentoGraphqlClient = request.adaptTo(MagentoGraphqlClient.class);
+        if (magentoGraphqlClient == null) {
+            return null;
+        }
+
+        // existing entries are not kept as long as resolved identifiers, the check must notice removed items soon
+        String clientKey = existingIdentifierCache != null ? MagentoGraphqlClientCacheKey.of(magentoGraphqlClient) : null;
+        String cacheKey = type + ";" + identifier + ";" + clientKey;
+        if (clientKey != null) {
+            if (existingIdentifierCache.getIfPresent(cacheKey) != null) {
+                return Boolean.TRUE;
+            }
+            if (missingIdentifierCache.getIfPresent(cacheKey) != null) {
+                return Boolean.FALSE;
+            }
+        }
+
+        GraphqlResponse<Query, Error> response = magentoGraphqlClient.execute(query);
+        if (CollectionUtils.isNotEmpty(response.getErrors()) || response.getData() == null) {
+            return null;
+        }
+        boolean exists = found.test(response.getData());
+        if (clientKey != null) {
+            (exists ? existingIdentifierCache : missingIdentifierCache).put(cacheKey, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    /**
+     * Resolves the internal identifier for the given URL identifier using the cache shared across requests. Identifiers that could not
+     * be found are cached as well, unless the lookup failed with errors.
+     *
+     * @param type the type of the identifier, either product or category
+     * @param magentoGraphqlClient the client used for the lookup
+     * @param urlIdentifier the url_key or url_path
+     * @param resolver looks up the internal identifier
+     * @param failed returns {@code true} if the lookup failed with errors
+     * @return the internal identifier or {@code null} if it could not be resolved
+     */
+    private String resolveIdentifier(String type, MagentoGraphqlClient magentoGraphqlClient, String urlIdentifier,
+        Supplier<String> resolver, BooleanSupplier failed) {
+        String clientKey = identifierCache != null ? MagentoGraphqlClientCacheKey.of(magentoGraphqlClient) : null;
+        if (clientKey == null) {
+            return resolver.get();
+        }
+
+        String cacheKey = type + ";" + urlIdentifier + ";" + clientKey;
+        String identifier = identifierCache.getIfPresent(cacheKey);
+        if (identifier != null || missingIdentifierCache.getIfPresent(cacheKey) != null) {
+            return identifier;
+        }
+
+        identifier = resolver.get();
+        if (identifier != null) {
+            identifierCache.put(cacheKey, identifier);
+        } else if (!failed.getAsBoolean()) {
+            missingIdentifierCache.put(cacheKey, Boolean.TRUE);
+        }
+        return identifier;
+    }
+
     /**
      * When the FragmentRenderService executes an internal request it passes its configuration as attribute to the internal request.
      * As this request may not be formatted in the way the UrlProvider was configured we have to pass the identifier parsed from the
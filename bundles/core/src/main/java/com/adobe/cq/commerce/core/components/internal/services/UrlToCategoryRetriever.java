@@ -15,22 +15,49 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import org.apache.commons.collections4.CollectionUtils;
+
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.core.components.models.retriever.AbstractCategoryRetriever;
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.CategoryFilterInput;
 import com.adobe.cq.commerce.magento.graphql.CategoryTreeQueryDefinition;
 import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
 import com.adobe.cq.commerce.magento.graphql.Operations;
+import com.adobe.cq.commerce.magento.graphql.Query;
 import com.adobe.cq.commerce.magento.graphql.QueryQuery;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
 
 class UrlToCategoryRetriever extends AbstractCategoryRetriever {
 
+    private boolean failed;
+
     UrlToCategoryRetriever(MagentoGraphqlClient client) {
         super(client);
     }
 
+    @Override
+    protected GraphqlResponse<Query, Error> executeQuery() {
+        GraphqlResponse<Query, Error> response = super.executeQuery();
+        failed = CollectionUtils.isNotEmpty(response.getErrors());
+        return response;
+    }
+
+    /**
+     * Returns {@code true} if the category could not be fetched because of errors, as opposed to the category not being found.
+     */
+    boolean hasErrors() {
+        return failed;
+    }
+
     @Override
     public String generateQuery(String identifier) {
+        // the query does not depend on any hooks
+        return QueryTemplates.generate(UrlToCategoryRetriever.class.getName(), identifier, this::buildQuery);
+    }
+
+    private String buildQuery(String identifier) {
         CategoryTreeQueryDefinition queryArgs = generateCategoryQuery();
         return Operations.query(query -> {
             CategoryFilterInput filter = new CategoryFilterInput().setUrlKey(new FilterEqualTypeInput().setEq(identifier));
@@ -21,6 +21,7 @@ import java.util.Optional;
 import org.apache.commons.collections4.CollectionUtils;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.core.components.models.retriever.AbstractProductRetriever;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
@@ -35,12 +36,33 @@ import com.adobe.cq.commerce.magento.graphql.gson.Error;
 
 class UrlToProductRetriever extends AbstractProductRetriever {
 
+    private boolean failed;
+
     UrlToProductRetriever(MagentoGraphqlClient client) {
         super(client);
     }
 
+    @Override
+    protected GraphqlResponse<Query, Error> executeQuery() {
+        GraphqlResponse<Query, Error> response = super.executeQuery();
+        failed = CollectionUtils.isNotEmpty(response.getErrors());
+        return response;
+    }
+
+    /**
+     * Returns {@code true} if the product could not be fetched because of errors, as opposed to the product not being found.
+     */
+    boolean hasErrors() {
+        return failed;
+    }
+
     @Override
     protected String generateQuery(String identifier) {
+        // the query does not depend on any hooks
+        return QueryTemplates.generate(UrlToProductRetriever.class.getName(), identifier, this::buildQuery);
+    }
+
+    private String buildQuery(String identifier) {
         ProductsQueryDefinition queryArgs = q -> q.items(generateProductQuery());
         return Operations.query(query -> {
             ProductAttributeFilterInput filter = new ProductAttributeFilterInput().setUrlKey(new FilterEqualTypeInput().setEq(identifier));
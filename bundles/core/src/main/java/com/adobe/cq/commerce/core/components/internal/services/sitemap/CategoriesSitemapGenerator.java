@@ -44,6 +44,7 @@ import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.core.components.services.ComponentsConfiguration;
 import com.adobe.cq.commerce.core.components.services.sitemap.SitemapCategoryFilter;
 import com.adobe.cq.commerce.core.components.services.urls.CategoryUrlFormat;
@@ -125,7 +126,8 @@ public class CategoriesSitemapGenerator extends SitemapGeneratorBase implements
 
         while (!categoryUids.isEmpty()) {
             String categoryId = categoryUids.poll();
-            String query = Operations.query(categoryQueryFor(categoryId)).toString();
+            String query = QueryTemplates.generate(Arrays.asList(CategoriesSitemapGenerator.class.getName(), addLastModified), categoryId,
+                id -> Operations.query(categoryQueryFor(id)).toString());
             GraphqlResponse<Query, Error> resp = graphql.execute(query);
 
             if (CollectionUtils.isNotEmpty(resp.getErrors())) {
@@ -15,9 +15,14 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.sitemap;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -68,6 +73,24 @@ public class ProductsSitemapGenerator extends SitemapGeneratorBase implements Si
             description = "The number of products to query from the commerce backend per iteration.")
         int pageSize() default 10;
 
+        @AttributeDefinition(
+            name = "Maximum Pagination Size",
+            description = "The number of products to query per iteration is doubled, up to this number, while the commerce backend "
+                + "responds faster than the target response time. It is halved down to the pagination size again when the backend "
+                + "responds slower. Set to the pagination size or less to always use the pagination size.")
+        int maxPageSize() default 160;
+
+        @AttributeDefinition(
+            name = "Target Response Time",
+            description = "The response time in milliseconds below which the number of products queried per iteration is increased.")
+        int targetResponseTime() default 1000;
+
+        @AttributeDefinition(
+            name = "Prefetch Pages",
+            description = "The number of pages queried from the commerce backend in advance, while the current page is added to the "
+                + "sitemap. Set to 0 to query the pages one after the other.")
+        int prefetchPages() default 2;
+
         @AttributeDefinition(
             name = "Add Last Modified",
             description = "If enabled, a Product's last update date will be set as last "
@@ -87,11 +110,17 @@ public class ProductsSitemapGenerator extends SitemapGeneratorBase implements Si
     private SitemapProductFilter productFilter;
 
     private int pageSize;
+    private int maxPageSize;
+    private long targetResponseTime;
+    private int prefetchPages;
     private boolean addLastModified;
 
     @Activate
     protected void activate(Configuration configuration) {
         this.pageSize = configuration.pageSize();
+        this.maxPageSize = Math.max(pageSize, configuration.maxPageSize());
+        this.targetResponseTime = TimeUnit.MILLISECONDS.toNanos(configuration.targetResponseTime());
+        this.prefetchPages = Math.max(0, configuration.prefetchPages());
         this.addLastModified = configuration.enableLastModified();
     }
 
@@ -113,15 +142,36 @@ public class ProductsSitemapGenerator extends SitemapGeneratorBase implements Si
             throw new SitemapException("Failed to build product sitemap at: " + sitemapRoot.getPath());
         }
 
+        // the checkpoint is kept in pages of the configured page size, so that a generation can be resumed with any page size
         int currentIndex = context.getProperty(PN_NEXT_PRODUCT, 0);
         int currentPageIndex = context.getProperty(PN_NEXT_PAGE, 1);
-        int maxPages = Integer.MAX_VALUE;
+        int resumeOffset = (currentPageIndex - 1) * pageSize + currentIndex;
+        int nextOffset = (currentPageIndex - 1) * pageSize;
+        int nextPageSize = pageSize;
+        int totalCount = -1;
         ResourceResolver resourceResolver = sitemapRoot.getResourceResolver();
         SitemapLinkExternalizer externalizer = externalizerProvider.getExternalizer(resourceResolver);
+        Deque<ProductsPage> pages = new ArrayDeque<>();
 
-        while (currentPageIndex <= maxPages) {
-            String query = Operations.query(productsQueryFor(currentPageIndex, pageSize)).toString();
-            GraphqlResponse<Query, Error> resp = graphql.execute(query);
+        while (true) {
+            // query the next pages in advance, but only a single one until the total count is known
+            int maxQueriedPages = totalCount < 0 ? 1 : prefetchPages + 1;
+            while (pages.size() < maxQueriedPages && (totalCount < 0 || nextOffset < totalCount)) {
+                int size = nextPageSize;
+                // pages must start at a multiple of their size
+                while (nextOffset % size != 0 && size > pageSize) {
+                    size /= 2;
+                }
+                pages.add(new ProductsPage(graphql, nextOffset, size));
+                nextOffset += size;
+            }
+
+            ProductsPage page = pages.poll();
+            if (page == null) {
+                break;
+            }
+
+            GraphqlResponse<Query, Error> resp = page.getResponse();
 
             if (CollectionUtils.isNotEmpty(resp.getErrors())) {
                 SitemapException ex = new SitemapException("Failed to execute graphql query.");
@@ -131,14 +181,9 @@ public class ProductsSitemapGenerator extends SitemapGeneratorBase implements Si
 
             Products products = resp.getData().getProducts();
             List<ProductInterface> items = products.getItems();
-            maxPages = products.getTotalCount() / pageSize;
-
-            if (products.getTotalCount() % pageSize > 0) {
-                // there is a fractional part of items on the last page
-                maxPages++;
-            }
+            totalCount = products.getTotalCount();
 
-            for (int i = currentIndex; i < items.size(); i++) {
+            for (int i = Math.max(0, resumeOffset - page.offset); i < items.size(); i++) {
                 ProductInterface product = items.get(i);
                 if (productFilter != null && !productFilter.shouldInclude(productPage, product)) {
                     logger.debug("Ignore product {}, not allowed by filter: {}", product.getSku(), productFilter.getClass()
@@ -152,15 +197,24 @@ public class ProductsSitemapGenerator extends SitemapGeneratorBase implements Si
                 if (addLastModified) {
                     addLastModified(url, product);
                 }
-                context.setProperty(PN_NEXT_PRODUCT, i + 1);
+                setCheckpoint(context, page.offset + i + 1);
             }
 
-            currentIndex = 0;
-            context.setProperty(PN_NEXT_PRODUCT, currentIndex);
-            context.setProperty(PN_NEXT_PAGE, ++currentPageIndex);
+            setCheckpoint(context, page.offset + page.size);
+
+            if (page.duration < targetResponseTime && nextPageSize * 2 <= maxPageSize) {
+                nextPageSize *= 2;
+            } else if (page.duration > targetResponseTime && nextPageSize > pageSize) {
+                nextPageSize /= 2;
+            }
         }
     }
 
+    private void setCheckpoint(SitemapGenerator.Context context, int nextOffset) {
+        context.setProperty(PN_NEXT_PRODUCT, nextOffset % pageSize);
+        context.setProperty(PN_NEXT_PAGE, nextOffset / pageSize + 1);
+    }
+
     private QueryQueryDefinition productsQueryFor(int pageIndex, int pageSize) {
         return q -> q.products(
             arguments -> arguments
@@ -181,4 +235,37 @@ public class ProductsSitemapGenerator extends SitemapGeneratorBase implements Si
                     }
                 }));
     }
+
+    /**
+     * A page of products queried asynchronously, starting at the given offset of the catalog.
+     */
+    private class ProductsPage {
+
+        private final int offset;
+        private final int size;
+        private final CompletableFuture<GraphqlResponse<Query, Error>> response;
+        private volatile long duration;
+
+        ProductsPage(MagentoGraphqlClient graphql, int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+            String query = Operations.query(productsQueryFor(offset / size + 1, size)).toString();
+            long start = System.nanoTime();
+            this.response = graphql.executeAsync(query).thenApply(resp -> {
+                duration = System.nanoTime() - start;
+                return resp;
+            });
+        }
+
+        GraphqlResponse<Query, Error> getResponse() throws SitemapException {
+            try {
+                return response.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SitemapException("Interrupted while querying products.", ex);
+            } catch (ExecutionException ex) {
+                throw new SitemapException("Failed to execute graphql query.", ex.getCause());
+            }
+        }
+    }
 }
@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.request.RequestPathInfo;
 
@@ -25,6 +24,7 @@ public class CategoryPageWithUrlKey extends UrlFormatBase implements CategoryUrl
 
     public static final CategoryUrlFormat INSTANCE = new CategoryPageWithUrlKey();
     public static final String PATTERN = "{{page}}.html/{{url_key}}.html";
+    private static final Template TEMPLATE = Template.compile(PATTERN);
 
     private CategoryPageWithUrlKey() {
         super();
@@ -32,10 +32,7 @@ public class CategoryPageWithUrlKey extends UrlFormatBase implements CategoryUrl
 
     @Override
     public String format(Params parameters) {
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + StringUtils.defaultIfEmpty(getUrlKey(parameters.getUrlPath(), parameters.getUrlKey()), "{{url_key}}")
-            + HTML_EXTENSION;
+        return TEMPLATE.format(parameters.getPage(), getUrlKey(parameters.getUrlPath(), parameters.getUrlKey()));
     }
 
     @Override
@@ -47,9 +44,9 @@ public class CategoryPageWithUrlKey extends UrlFormatBase implements CategoryUrl
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            params.setUrlKey(suffix);
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            params.setUrlKey(suffix.toString());
         }
         return params;
     }
@@ -24,6 +24,7 @@ import com.adobe.cq.commerce.core.components.services.urls.CategoryUrlFormat;
 public class CategoryPageWithUrlPath extends UrlFormatBase implements CategoryUrlFormat {
     public static final CategoryUrlFormat INSTANCE = new CategoryPageWithUrlPath();
     public static final String PATTERN = "{{page}}.html/{{url_path}}.html";
+    private static final Template TEMPLATE = Template.compile(PATTERN);
 
     private CategoryPageWithUrlPath() {
         super();
@@ -31,11 +32,7 @@ public class CategoryPageWithUrlPath extends UrlFormatBase implements CategoryUr
 
     @Override
     public String format(Params parameters) {
-        String urlKey = StringUtils.defaultIfEmpty(parameters.getUrlKey(), "{{url_path}}");
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + StringUtils.defaultIfEmpty(parameters.getUrlPath(), urlKey)
-            + HTML_EXTENSION;
+        return TEMPLATE.format(parameters.getPage(), StringUtils.defaultIfEmpty(parameters.getUrlPath(), parameters.getUrlKey()));
     }
 
     @Override
@@ -47,10 +44,10 @@ public class CategoryPageWithUrlPath extends UrlFormatBase implements CategoryUr
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            params.setUrlPath(suffix);
-            params.setUrlKey(suffix.indexOf("/") > 0 ? StringUtils.substringAfterLast(suffix, "/") : suffix);
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            params.setUrlPath(suffix.toString());
+            params.setUrlKey(suffix.getLastSegment());
         }
         return params;
     }
@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.request.RequestPathInfo;
 
@@ -24,6 +23,7 @@ import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 public class ProductPageWithSku extends UrlFormatBase implements ProductUrlFormat {
     public static final ProductUrlFormat INSTANCE = new ProductPageWithSku();
     public static final String PATTERN = "{{page}}.html/{{sku}}.html#{{variant_sku}}";
+    private static final Template TEMPLATE = Template.compile(PATTERN, "variant_sku");
 
     private ProductPageWithSku() {
         super();
@@ -31,11 +31,7 @@ public class ProductPageWithSku extends UrlFormatBase implements ProductUrlForma
 
     @Override
     public String format(Params parameters) {
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + StringUtils.defaultIfEmpty(parameters.getSku(), "{{sku}}")
-            + HTML_EXTENSION
-            + getOptionalAnchor(parameters.getVariantSku());
+        return TEMPLATE.format(parameters.getPage(), parameters.getSku(), parameters.getVariantSku());
     }
 
     @Override
@@ -47,9 +43,9 @@ public class ProductPageWithSku extends UrlFormatBase implements ProductUrlForma
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            params.setSku(suffix);
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            params.setSku(suffix.toString());
         }
         return params;
     }
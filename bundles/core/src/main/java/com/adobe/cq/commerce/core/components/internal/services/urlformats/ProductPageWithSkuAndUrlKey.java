@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.request.RequestPathInfo;
 
@@ -24,6 +23,7 @@ import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 public class ProductPageWithSkuAndUrlKey extends UrlFormatBase implements ProductUrlFormat {
     public static final ProductUrlFormat INSTANCE = new ProductPageWithSkuAndUrlKey();
     public static final String PATTERN = "{{page}}.html/{{sku}}/{{url_key}}.html#{{variant_sku}}";
+    private static final Template TEMPLATE = Template.compile(PATTERN, "url_key", "variant_sku");
 
     private ProductPageWithSkuAndUrlKey() {
         super();
@@ -32,12 +32,8 @@ public class ProductPageWithSkuAndUrlKey extends UrlFormatBase implements Produc
     @Override
     public String format(Params parameters) {
         String urlKey = getUrlKey(parameters.getUrlPath(), parameters.getUrlKey());
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + StringUtils.defaultIfEmpty(parameters.getSku(), "{{sku}}")
-            // this url format works also without the url_key
-            + (urlKey != null ? "/" + urlKey + HTML_EXTENSION : HTML_EXTENSION)
-            + getOptionalAnchor(parameters.getVariantSku());
+        // this url format works also without the url_key
+        return TEMPLATE.format(parameters.getPage(), parameters.getSku(), urlKey, parameters.getVariantSku());
     }
 
     @Override
@@ -49,13 +45,13 @@ public class ProductPageWithSkuAndUrlKey extends UrlFormatBase implements Produc
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            if (suffix.indexOf("/") > 0) {
-                params.setSku(StringUtils.substringBefore(suffix, "/"));
-                params.setUrlKey(StringUtils.substringAfter(suffix, "/"));
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            if (suffix.hasSegments()) {
+                params.setSku(suffix.getFirstSegment());
+                params.setUrlKey(suffix.getRemainder().toString());
             } else {
-                params.setSku(suffix);
+                params.setSku(suffix.toString());
             }
         }
         return params;
@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.request.RequestPathInfo;
 
@@ -24,6 +23,7 @@ import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 public class ProductPageWithSkuAndUrlPath extends UrlFormatBase implements ProductUrlFormat {
     public static final ProductUrlFormat INSTANCE = new ProductPageWithSkuAndUrlPath();
     public static final String PATTERN = "{{page}}.html/{{sku}}/{{url_path}}.html#{{variant_sku}}";
+    private static final Template TEMPLATE = Template.compile(PATTERN, "url_path", "variant_sku");
 
     private ProductPageWithSkuAndUrlPath() {
         super();
@@ -36,11 +36,7 @@ public class ProductPageWithSkuAndUrlPath extends UrlFormatBase implements Produ
         if (urlPath == null && urlKey != null) {
             urlPath = urlKey;
         }
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + StringUtils.defaultIfEmpty(parameters.getSku(), "{{sku}}")
-            + (urlPath != null ? "/" + urlPath + HTML_EXTENSION : HTML_EXTENSION)
-            + getOptionalAnchor(parameters.getVariantSku());
+        return TEMPLATE.format(parameters.getPage(), parameters.getSku(), urlPath, parameters.getVariantSku());
     }
 
     @Override
@@ -52,15 +48,15 @@ public class ProductPageWithSkuAndUrlPath extends UrlFormatBase implements Produ
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            if (suffix.indexOf("/") > 0) {
-                params.setSku(StringUtils.substringBefore(suffix, "/"));
-                String urlPath = StringUtils.substringAfter(suffix, "/");
-                params.setUrlPath(urlPath);
-                params.setUrlKey(urlPath.indexOf("/") > 0 ? StringUtils.substringAfterLast(urlPath, "/") : urlPath);
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            if (suffix.hasSegments()) {
+                params.setSku(suffix.getFirstSegment());
+                Suffix urlPath = suffix.getRemainder();
+                params.setUrlPath(urlPath.toString());
+                params.setUrlKey(urlPath.getLastSegment());
             } else {
-                params.setSku(suffix);
+                params.setSku(suffix.toString());
             }
         }
         return params;
@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.request.RequestPathInfo;
 
@@ -24,6 +23,7 @@ import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 public class ProductPageWithUrlKey extends UrlFormatBase implements ProductUrlFormat {
     public static final ProductUrlFormat INSTANCE = new ProductPageWithUrlKey();
     public static final String PATTERN = "{{page}}.html/{{url_key}}.html#{{variant_sku}}";
+    private static final Template TEMPLATE = Template.compile(PATTERN, "variant_sku");
 
     private ProductPageWithUrlKey() {
         super();
@@ -31,12 +31,8 @@ public class ProductPageWithUrlKey extends UrlFormatBase implements ProductUrlFo
 
     @Override
     public String format(Params parameters) {
-        ;
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + StringUtils.defaultIfEmpty(getUrlKey(parameters.getUrlPath(), parameters.getUrlKey()), "{{url_key}}")
-            + HTML_EXTENSION
-            + getOptionalAnchor(parameters.getVariantSku());
+        return TEMPLATE.format(parameters.getPage(), getUrlKey(parameters.getUrlPath(), parameters.getUrlKey()),
+            parameters.getVariantSku());
     }
 
     @Override
@@ -48,9 +44,9 @@ public class ProductPageWithUrlKey extends UrlFormatBase implements ProductUrlFo
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            params.setUrlKey(suffix);
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            params.setUrlKey(suffix.toString());
         }
         return params;
     }
@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.request.RequestPathInfo;
 
@@ -24,6 +23,7 @@ import com.adobe.cq.commerce.core.components.services.urls.ProductUrlFormat;
 public class ProductPageWithUrlPath extends UrlFormatBase implements ProductUrlFormat {
     public static final ProductUrlFormat INSTANCE = new ProductPageWithUrlPath();
     public static final String PATTERN = "{{page}}.html/{{url_path}}.html#{{variant_sku}}";
+    private static final Template TEMPLATE = Template.compile(PATTERN, "variant_sku");
 
     private ProductPageWithUrlPath() {
         super();
@@ -36,11 +36,7 @@ public class ProductPageWithUrlPath extends UrlFormatBase implements ProductUrlF
         if (urlPath == null && urlKey != null) {
             urlPath = urlKey;
         }
-        return StringUtils.defaultIfEmpty(parameters.getPage(), "{{page}}")
-            + HTML_EXTENSION_AND_SUFFIX
-            + (urlPath != null ? urlPath : "{{url_path}}")
-            + HTML_EXTENSION
-            + getOptionalAnchor(parameters.getVariantSku());
+        return TEMPLATE.format(parameters.getPage(), urlPath, parameters.getVariantSku());
     }
 
     @Override
@@ -52,10 +48,10 @@ public class ProductPageWithUrlPath extends UrlFormatBase implements ProductUrlF
         }
 
         params.setPage(removeJcrContent(requestPathInfo.getResourcePath()));
-        String suffix = StringUtils.removeStart(StringUtils.removeEnd(requestPathInfo.getSuffix(), HTML_EXTENSION), "/");
-        if (StringUtils.isNotBlank(suffix)) {
-            params.setUrlPath(suffix);
-            params.setUrlKey(suffix.indexOf("/") > 0 ? StringUtils.substringAfterLast(suffix, "/") : suffix);
+        Suffix suffix = Suffix.of(requestPathInfo.getSuffix());
+        if (!suffix.isBlank()) {
+            params.setUrlPath(suffix.toString());
+            params.setUrlKey(suffix.getLastSegment());
         }
         return params;
     }
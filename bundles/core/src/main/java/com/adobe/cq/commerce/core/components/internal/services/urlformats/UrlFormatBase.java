@@ -15,6 +15,8 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services.urlformats;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -24,7 +26,6 @@ import org.apache.sling.api.resource.ResourceUtil;
 class UrlFormatBase {
 
     protected static String HTML_EXTENSION = ".html";
-    protected static String HTML_EXTENSION_AND_SUFFIX = HTML_EXTENSION + "/";
 
     /**
      * Returns the url_key from the given parameters.
@@ -49,10 +50,6 @@ class UrlFormatBase {
         return StringUtils.isNotEmpty(urlKey) ? urlKey : null;
     }
 
-    protected static String getOptionalAnchor(String anchor) {
-        return StringUtils.isNotEmpty(anchor) ? "#" + anchor : "";
-    }
-
     protected static String removeJcrContent(String path) {
         if (path == null) {
             return null;
@@ -63,20 +60,214 @@ class UrlFormatBase {
         }
     }
 
+    /**
+     * A URL pattern compiled once into its literal parts and placeholders, to format URLs without parsing the pattern again.
+     * <p>
+     * Missing values of mandatory placeholders are written as {@code "{{placeholder}}"}. Missing values of optional placeholders are
+     * omitted together with the separator in front of them.
+     */
+    protected static final class Template {
+
+        private final String[] literals;
+        private final String[] literalsWithoutSeparator;
+        private final String[] defaults;
+        private final boolean[] optional;
+        private final int length;
+
+        private Template(String pattern, List<String> optionalPlaceholders) {
+            List<String> literalParts = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+            int position = 0;
+            int start = pattern.indexOf("{{");
+            while (start >= 0) {
+                int end = pattern.indexOf("}}", start);
+                if (end < 0) {
+                    break;
+                }
+                literalParts.add(pattern.substring(position, start));
+                placeholders.add(pattern.substring(start + 2, end));
+                position = end + 2;
+                start = pattern.indexOf("{{", position);
+            }
+            literalParts.add(pattern.substring(position));
+
+            literals = literalParts.toArray(new String[0]);
+            defaults = new String[placeholders.size()];
+            optional = new boolean[placeholders.size()];
+            literalsWithoutSeparator = new String[placeholders.size()];
+            for (int i = 0; i < defaults.length; i++) {
+                String placeholder = placeholders.get(i);
+                defaults[i] = "{{" + placeholder + "}}";
+                optional[i] = optionalPlaceholders.contains(placeholder);
+                literalsWithoutSeparator[i] = StringUtils.chop(literals[i]);
+            }
+            length = pattern.length();
+        }
+
+        /**
+         * Compiles the given pattern.
+         *
+         * @param pattern the pattern with placeholders in the form of {@code {{placeholder}}}
+         * @param optionalPlaceholders the placeholders that are omitted with their separator when their value is missing
+         * @return the compiled pattern
+         */
+        protected static Template compile(String pattern, String... optionalPlaceholders) {
+            return new Template(pattern, Arrays.asList(optionalPlaceholders));
+        }
+
+        /**
+         * Formats a URL with the given values, in the order of the placeholders in the pattern. A {@code null} or empty value is
+         * considered as missing.
+         *
+         * @param values the values of the placeholders
+         * @return the formatted URL
+         */
+        protected String format(String... values) {
+            StringBuilder url = new StringBuilder(length + 64);
+            for (int i = 0; i < defaults.length; i++) {
+                String value = values[i];
+                if (StringUtils.isNotEmpty(value)) {
+                    url.append(literals[i]).append(value);
+                } else if (optional[i]) {
+                    url.append(literalsWithoutSeparator[i]);
+                } else {
+                    url.append(literals[i]).append(defaults[i]);
+                }
+            }
+            return url.append(literals[defaults.length]).toString();
+        }
+    }
+
+    /**
+     * A view on the part of a request suffix between the leading {@code "/"} and the trailing {@code ".html"}. The parts of the suffix
+     * are located by their offsets, so only the values finally returned are copied.
+     */
+    protected static final class Suffix {
+
+        private final String value;
+        private final int start;
+        private final int end;
+        private final int firstSlash;
+
+        private Suffix(String value, int start, int end) {
+            this.value = value;
+            this.start = start;
+            this.end = end;
+            int slash = value.indexOf('/', start);
+            this.firstSlash = slash >= 0 && slash < end ? slash : -1;
+        }
+
+        /**
+         * Returns the given request suffix without its leading {@code "/"} and trailing {@code ".html"}.
+         *
+         * @param suffix the request suffix, may be {@code null}
+         * @return the suffix
+         */
+        protected static Suffix of(String suffix) {
+            if (suffix == null) {
+                return new Suffix("", 0, 0);
+            }
+            int end = suffix.endsWith(HTML_EXTENSION) ? suffix.length() - HTML_EXTENSION.length() : suffix.length();
+            int start = end > 0 && suffix.charAt(0) == '/' ? 1 : 0;
+            return new Suffix(suffix, start, end);
+        }
+
+        /**
+         * @return true if the suffix is empty or contains only whitespace
+         */
+        protected boolean isBlank() {
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the suffix contains a {@code "/"} after its first character
+         */
+        protected boolean hasSegments() {
+            return firstSlash > start;
+        }
+
+        /**
+         * @return the part of the suffix before the first {@code "/"}
+         */
+        protected String getFirstSegment() {
+            return hasSegments() ? value.substring(start, firstSlash) : toString();
+        }
+
+        /**
+         * @return the part of the suffix after the first {@code "/"}
+         */
+        protected Suffix getRemainder() {
+            return firstSlash >= 0 ? new Suffix(value, firstSlash + 1, end) : new Suffix(value, end, end);
+        }
+
+        /**
+         * @return the part of the suffix after the last {@code "/"}, or the whole suffix if it contains no {@code "/"} after its first
+         *         character
+         */
+        protected String getLastSegment() {
+            return hasSegments() ? value.substring(value.lastIndexOf('/', end - 1) + 1, end) : toString();
+        }
+
+        @Override
+        public String toString() {
+            return value.substring(start, end);
+        }
+    }
+
+    /**
+     * Returns the given urlPath, or if it is empty, the first of the longest alternatives by number of path segments that ends with the
+     * given urlKey.
+     * <p>
+     * The alternatives are scanned once without splitting them into their path segments, as products assigned to many categories may
+     * have many url_rewrites.
+     *
+     * @param urlPath
+     * @param alternatives
+     * @param urlKey
+     * @return
+     */
     protected static String selectUrlPath(String urlPath, List<String> alternatives, String urlKey) {
         if (StringUtils.isNotEmpty(urlPath)) {
             return urlPath;
         }
 
-        String[] candidateParts = new String[0];
+        if (StringUtils.isEmpty(urlKey)) {
+            return null;
+        }
+
+        String candidate = null;
+        int candidateSegments = 0;
 
         for (String alternative : alternatives) {
-            String[] optionParts = alternative.split("/");
-            if (optionParts.length > candidateParts.length && optionParts[optionParts.length - 1].equals(urlKey)) {
-                candidateParts = optionParts;
+            // trailing slashes are ignored
+            int end = alternative.length();
+            while (end > 0 && alternative.charAt(end - 1) == '/') {
+                end--;
+            }
+
+            int lastSegmentStart = end - urlKey.length();
+            if (lastSegmentStart < 0 || (lastSegmentStart > 0 && alternative.charAt(lastSegmentStart - 1) != '/')
+                || !alternative.regionMatches(lastSegmentStart, urlKey, 0, urlKey.length())) {
+                continue;
+            }
+
+            int segments = 1;
+            for (int i = 0; i < lastSegmentStart; i++) {
+                if (alternative.charAt(i) == '/') {
+                    segments++;
+                }
+            }
+            if (segments > candidateSegments) {
+                candidate = end < alternative.length() ? alternative.substring(0, end) : alternative;
+                candidateSegments = segments;
             }
         }
 
-        return candidateParts.length > 0 ? StringUtils.join(candidateParts, '/') : null;
+        return candidate;
     }
 }
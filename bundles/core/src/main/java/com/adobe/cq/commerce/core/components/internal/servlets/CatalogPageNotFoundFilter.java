@@ -25,6 +25,7 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
@@ -39,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.cq.commerce.core.components.internal.services.CommerceComponentModelFinder;
+import com.adobe.cq.commerce.core.components.internal.services.UrlProviderImpl;
 import com.adobe.cq.commerce.core.components.models.product.Product;
 import com.adobe.cq.commerce.core.components.models.productlist.ProductList;
 import com.adobe.cq.commerce.core.components.models.retriever.AbstractCategoryRetriever;
@@ -47,6 +49,7 @@ import com.day.cq.wcm.api.NameConstants;
 import com.day.cq.wcm.api.Page;
 import com.day.cq.wcm.api.PageManager;
 import com.day.cq.wcm.api.PageManagerFactory;
+import com.day.cq.wcm.api.WCMMode;
 
 @Component(
     service = Filter.class,
@@ -68,11 +71,14 @@ import com.day.cq.wcm.api.PageManagerFactory;
 public class CatalogPageNotFoundFilter implements Filter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CatalogPageNotFoundFilter.class);
+    private static final String PN_PRODUCT_SELECTION = "selection";
 
     @Reference
     private PageManagerFactory pageManagerFactory;
     @Reference
     private CommerceComponentModelFinder commerceModelFinder;
+    @Reference
+    private UrlProviderImpl urlProvider;
 
     private BundleContext bundleContext;
 
@@ -101,22 +107,29 @@ public class CatalogPageNotFoundFilter implements Filter {
 
         if (currentPage != null) {
             boolean removeSlingScriptHelperFromBindings = false;
+            Resource contentResource = currentPage.getContentResource();
             if (SiteNavigation.isProductPage(currentPage)) {
-                removeSlingScriptHelperFromBindings = addSlingScriptHelperIfNeeded(slingRequest, slingResponse);
-                Product product = commerceModelFinder.findProductComponentModel(slingRequest, currentPage.getContentResource());
-                if (product != null && !product.getFound()) {
+                Boolean found = productExists(slingRequest, contentResource);
+                if (found == null) {
+                    removeSlingScriptHelperFromBindings = addSlingScriptHelperIfNeeded(slingRequest, slingResponse);
+                    Product product = commerceModelFinder.findProductComponentModel(slingRequest, contentResource);
+                    found = product == null || product.getFound();
+                }
+                if (!found) {
                     slingResponse.sendError(HttpServletResponse.SC_NOT_FOUND, "Product not found");
                     return;
                 }
             } else if (SiteNavigation.isCategoryPage(currentPage)) {
-                removeSlingScriptHelperFromBindings = addSlingScriptHelperIfNeeded(slingRequest, slingResponse);
-                ProductList productList = commerceModelFinder.findProductListComponentModel(slingRequest, currentPage.getContentResource());
-                if (productList != null) {
-                    AbstractCategoryRetriever categoryRetriever = productList.getCategoryRetriever();
-                    if (categoryRetriever == null || categoryRetriever.fetchCategory() == null) {
-                        slingResponse.sendError(HttpServletResponse.SC_NOT_FOUND, "Category not found");
-                        return;
-                    }
+                Boolean found = categoryExists(slingRequest, contentResource);
+                if (found == null) {
+                    removeSlingScriptHelperFromBindings = addSlingScriptHelperIfNeeded(slingRequest, slingResponse);
+                    ProductList productList = commerceModelFinder.findProductListComponentModel(slingRequest, contentResource);
+                    AbstractCategoryRetriever categoryRetriever = productList != null ? productList.getCategoryRetriever() : null;
+                    found = productList == null || (categoryRetriever != null && categoryRetriever.fetchCategory() != null);
+                }
+                if (!found) {
+                    slingResponse.sendError(HttpServletResponse.SC_NOT_FOUND, "Category not found");
+                    return;
                 }
             }
 
@@ -135,6 +148,46 @@ public class CatalogPageNotFoundFilter implements Filter {
     @Override
     public void destroy() {}
 
+    /**
+     * Checks if the product of a product page exists without creating the {@link Product} model, which runs all
+     * {@link org.apache.sling.scripting.api.BindingsValuesProvider} and fetches all the data of the product.
+     *
+     * @return {@code false} if the page has a product component and its product does not exist, {@code null} if this cannot be decided
+     *         without the model
+     */
+    private Boolean productExists(SlingHttpServletRequest slingRequest, Resource contentResource) {
+        if (!WCMMode.DISABLED.equals(WCMMode.fromRequest(slingRequest))) {
+            // the components render placeholder data in the editor
+            return null;
+        }
+        Resource component = commerceModelFinder.findProductComponentResource(contentResource);
+        if (component == null) {
+            return Boolean.TRUE;
+        }
+        if (StringUtils.isNotEmpty(component.getValueMap().get(PN_PRODUCT_SELECTION, String.class))) {
+            // the product is selected in the component dialog instead of the URL
+            return null;
+        }
+        return urlProvider.productExists(slingRequest);
+    }
+
+    /**
+     * Checks if the category of a category page exists without creating the {@link ProductList} model.
+     *
+     * @return {@code false} if the page has a product list component and its category does not exist, {@code null} if this cannot be
+     *         decided without the model
+     */
+    private Boolean categoryExists(SlingHttpServletRequest slingRequest, Resource contentResource) {
+        if (!WCMMode.DISABLED.equals(WCMMode.fromRequest(slingRequest))) {
+            // the components render placeholder data in the editor
+            return null;
+        }
+        if (commerceModelFinder.findProductListComponentResource(contentResource) == null) {
+            return Boolean.TRUE;
+        }
+        return urlProvider.categoryExists(slingRequest);
+    }
+
     /**
      * The {@link CommerceComponentModelFinder} uses
      * {@link org.apache.sling.models.factory.ModelFactory#getModelFromWrappedRequest(SlingHttpServletRequest, Resource, Class)}
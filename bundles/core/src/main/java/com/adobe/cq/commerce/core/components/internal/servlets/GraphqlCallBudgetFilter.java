@@ -0,0 +1,121 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.servlets;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.engine.EngineConstants;
+import org.apache.sling.settings.SlingSettingsService;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.cq.commerce.core.components.internal.client.GraphqlCallRecorder;
+
+/**
+ * Records the GraphQL queries executed while rendering a page with a {@link GraphqlCallRecorder} and logs a warning when the number of
+ * calls to the GraphQL client exceeds the configured budget. On instances with a debug run mode the recorded calls are added to the
+ * response.
+ */
+@Component(
+    service = Filter.class,
+    property = {
+        EngineConstants.SLING_FILTER_SCOPE + "=" + EngineConstants.FILTER_SCOPE_REQUEST,
+        // limit to typical content rendering requests
+        EngineConstants.SLING_FILTER_EXTENSIONS + "=html",
+        EngineConstants.SLING_FILTER_EXTENSIONS + "=json",
+        // since 6.5 / Sling Engine Impl 2.7
+        "sling.filter.resource.pattern=/content(/.+)?"
+    })
+@Designate(ocd = GraphqlCallBudgetFilterConfiguration.class)
+public class GraphqlCallBudgetFilter implements Filter {
+
+    static final String HEADER_NAME = "X-CIF-GraphQL-Calls";
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphqlCallBudgetFilter.class);
+
+    @Reference
+    private SlingSettingsService slingSettingsService;
+
+    private int callBudget;
+    private boolean debug;
+
+    @Activate
+    @Modified
+    protected void activate(GraphqlCallBudgetFilterConfiguration configuration) {
+        Set<String> runModes = slingSettingsService.getRunModes();
+        callBudget = Math.max(0, configuration.callBudget());
+        debug = configuration.debugRunModes() != null && Arrays.stream(configuration.debugRunModes()).anyMatch(runModes::contains);
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {}
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (!(servletRequest instanceof SlingHttpServletRequest) || !(servletResponse instanceof SlingHttpServletResponse)
+            || (callBudget == 0 && !debug)) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) servletRequest;
+        SlingHttpServletResponse slingResponse = (SlingHttpServletResponse) servletResponse;
+        GraphqlCallRecorder recorder = GraphqlCallRecorder.start(slingRequest);
+        if (recorder == null) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        filterChain.doFilter(servletRequest, servletResponse);
+
+        if (callBudget > 0 && recorder.getClientQueries() > callBudget) {
+            LOGGER.warn("Rendering {} passed {} queries to the GraphQL client, exceeding the budget of {}: {}",
+                slingRequest.getRequestURI(), recorder.getClientQueries(), callBudget, recorder);
+        }
+
+        if (debug && recorder.getQueries() > 0) {
+            if (!slingResponse.isCommitted()) {
+                slingResponse.setHeader(HEADER_NAME, recorder.toString());
+            } else if (StringUtils.startsWith(slingResponse.getContentType(), "text/html")) {
+                try {
+                    slingResponse.getWriter().write("\n<!-- " + HEADER_NAME + ": " + recorder + " -->\n");
+                } catch (IllegalStateException e) {
+                    LOGGER.debug("Cannot add the GraphQL calls to the response of {}", slingRequest.getRequestURI());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {}
+}
@@ -0,0 +1,35 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.servlets;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+@ObjectClassDefinition(name = "CIF GraphQL Call Budget Filter Configuration")
+public @interface GraphqlCallBudgetFilterConfiguration {
+
+    @AttributeDefinition(
+        name = "Call budget",
+        description = "A warning is logged when rendering a page sends more GraphQL queries than this number to the GraphQL client, "
+            + "including the queries the client answers from its cache. Set to 0 to disable the warning.")
+    int callBudget() default 10;
+
+    @AttributeDefinition(
+        name = "Debug run modes",
+        description = "On instances with any of these run modes the GraphQL calls of a page are added to the response, either as "
+            + "X-CIF-GraphQL-Calls header or as HTML comment if the response was already committed.")
+    String[] debugRunModes() default { "author", "debug" };
+}
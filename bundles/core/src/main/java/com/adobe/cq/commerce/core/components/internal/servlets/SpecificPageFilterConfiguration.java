@@ -28,4 +28,12 @@ public @interface SpecificPageFilterConfiguration {
         type = AttributeType.STRING,
         required = true)
     String sling_filter_pattern();
+
+    @AttributeDefinition(
+        name = "Forward to specific pages",
+        description = "If enabled, the request is forwarded with an additional selector to resolve the specific page in a second "
+            + "request, as done by previous versions. By default the specific page is resolved once and the request is forwarded "
+            + "directly to its content.",
+        type = AttributeType.BOOLEAN)
+    boolean forwardToSpecificPage() default false;
 }
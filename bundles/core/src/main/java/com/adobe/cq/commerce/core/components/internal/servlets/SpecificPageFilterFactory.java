@@ -16,6 +16,7 @@
 package com.adobe.cq.commerce.core.components.internal.servlets;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -26,15 +27,19 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestDispatcherOptions;
 import org.apache.sling.api.resource.Resource;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.Designate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adobe.cq.commerce.core.components.internal.services.SpecificPageStrategy;
 import com.adobe.cq.commerce.core.components.internal.services.UrlProviderImpl;
 import com.day.cq.wcm.api.WCMMode;
 
@@ -53,6 +58,17 @@ public class SpecificPageFilterFactory implements Filter {
     @Reference
     private UrlProviderImpl urlProvider;
 
+    @Reference
+    private SpecificPageStrategy specificPageStrategy;
+
+    private boolean forwardToSpecificPage;
+
+    @Activate
+    @Modified
+    protected void activate(SpecificPageFilterConfiguration configuration) {
+        forwardToSpecificPage = configuration.forwardToSpecificPage();
+    }
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {}
 
@@ -77,6 +93,28 @@ public class SpecificPageFilterFactory implements Filter {
             return;
         }
 
+        if (!forwardToSpecificPage) {
+            // We resolve the specific page here and forward the request directly to its content, so that the servlet and script are
+            // resolved for the specific page
+            Resource page = slingRequest.getResource();
+            if (JcrConstants.JCR_CONTENT.equals(page.getName())) {
+                page = page.getParent();
+            }
+            LOGGER.debug("Checking sub-pages for {} {}", slingRequest.getRequestURI(), page.getPath());
+            Resource subPage = specificPageStrategy.getSpecificPage(page, Collections.singleton(identifier), slingRequest, null);
+            if (subPage == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+
+            Resource content = subPage.getChild(JcrConstants.JCR_CONTENT);
+            RequestDispatcherOptions options = new RequestDispatcherOptions();
+            options.setReplaceSelectors(identifier);
+            RequestDispatcher dispatcher = slingRequest.getRequestDispatcher(content != null ? content : subPage, options);
+            dispatcher.forward(slingRequest, response);
+            return;
+        }
+
         // We add a specific selector to the request to forward the request to SpecificPageServlet
         RequestDispatcherOptions options = new RequestDispatcherOptions();
         options.setReplaceSelectors(SpecificPageServlet.SELECTOR + "." + identifier);
@@ -89,4 +127,5 @@ public class SpecificPageFilterFactory implements Filter {
 
     @Override
     public void destroy() {}
+
 }
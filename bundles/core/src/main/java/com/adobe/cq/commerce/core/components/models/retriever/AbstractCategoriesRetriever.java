@@ -23,6 +23,7 @@ import java.util.function.Consumer;
 import org.apache.commons.collections4.CollectionUtils;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.CategoryFilterInput;
 import com.adobe.cq.commerce.magento.graphql.CategoryTree;
@@ -114,6 +115,11 @@ public abstract class AbstractCategoriesRetriever extends AbstractRetriever {
      * @return GraphQL query as string
      */
     protected String generateQuery(List<String> identifiers) {
+        Object templateKey = QueryTemplates.retrieverKey(getClass(), AbstractCategoriesRetriever.class, categoryQueryHook);
+        return QueryTemplates.generate(templateKey, identifiers, this::buildQuery);
+    }
+
+    private String buildQuery(List<String> identifiers) {
         CategoryTreeQueryDefinition queryArgs = generateCategoryQuery();
         return Operations.query(query -> {
             FilterEqualTypeInput identifiersFilter = new FilterEqualTypeInput().setIn(identifiers);
@@ -124,6 +130,15 @@ public abstract class AbstractCategoriesRetriever extends AbstractRetriever {
         }).toString();
     }
 
+    @Override
+    public void registerQuery() {
+        if (query == null && identifiers != null) {
+            client.registerQuery(() -> generateQuery(identifiers));
+        } else {
+            super.registerQuery();
+        }
+    }
+
     /**
      * Execute the GraphQL query with the GraphQL client.
      *
@@ -15,6 +15,7 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.models.retriever;
 
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -23,6 +24,7 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.CategoryFilterInput;
 import com.adobe.cq.commerce.magento.graphql.CategoryInterface;
@@ -191,6 +193,14 @@ public abstract class AbstractCategoryRetriever extends AbstractRetriever {
      * @return GraphQL query as string
      */
     public String generateQuery(String identifier) {
+        Object retrieverKey = QueryTemplates.retrieverKey(getClass(), AbstractCategoryRetriever.class, categoryQueryHook,
+            productQueryHook);
+        // subclasses may use the pagination of this class in the query
+        Object templateKey = retrieverKey != null ? Arrays.asList(retrieverKey, currentPage, pageSize) : null;
+        return QueryTemplates.generate(templateKey, identifier, this::buildQuery);
+    }
+
+    private String buildQuery(String identifier) {
         return Operations.query(query -> {
             Pair<CategoryListArgumentsDefinition, CategoryTreeQueryDefinition> categoryQueryArgs = generateCategoryQueryArgs(identifier);
             query.categoryList(categoryQueryArgs.getLeft(), categoryQueryArgs.getRight());
@@ -222,6 +232,15 @@ public abstract class AbstractCategoryRetriever extends AbstractRetriever {
         return generateCategoryQueryArgs(identifier);
     }
 
+    @Override
+    public void registerQuery() {
+        if (query == null && identifier != null) {
+            client.registerQuery(() -> generateQuery(identifier));
+        } else {
+            super.registerQuery();
+        }
+    }
+
     /**
      * Execute the GraphQL query with the GraphQL client.
      *
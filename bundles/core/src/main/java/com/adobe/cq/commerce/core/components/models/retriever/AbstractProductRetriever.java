@@ -22,6 +22,7 @@ import java.util.function.Consumer;
 import org.apache.commons.collections4.CollectionUtils;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
 import com.adobe.cq.commerce.magento.graphql.Operations;
@@ -145,6 +146,11 @@ public abstract class AbstractProductRetriever extends AbstractRetriever {
      * @return GraphQL query as string
      */
     protected String generateQuery(String identifier) {
+        Object templateKey = QueryTemplates.retrieverKey(getClass(), AbstractProductRetriever.class, productQueryHook, variantQueryHook);
+        return QueryTemplates.generate(templateKey, identifier, this::buildQuery);
+    }
+
+    private String buildQuery(String identifier) {
         FilterEqualTypeInput identifierFilter = new FilterEqualTypeInput().setEq(identifier);
         ProductAttributeFilterInput filter = new ProductAttributeFilterInput().setSku(identifierFilter);
 
@@ -155,6 +161,15 @@ public abstract class AbstractProductRetriever extends AbstractRetriever {
             .products(searchArgs, queryArgs)).toString();
     }
 
+    @Override
+    public void registerQuery() {
+        if (query == null && identifier != null) {
+            client.registerQuery(() -> generateQuery(identifier));
+        } else {
+            super.registerQuery();
+        }
+    }
+
     /**
      * Execute the GraphQL query with the GraphQL client.
      *
@@ -22,6 +22,7 @@ import java.util.function.Consumer;
 import org.apache.commons.collections4.CollectionUtils;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.QueryTemplates;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
 import com.adobe.cq.commerce.magento.graphql.Operations;
@@ -130,6 +131,11 @@ public abstract class AbstractProductsRetriever extends AbstractRetriever {
      * @return GraphQL query as string
      */
     protected String generateQuery(List<String> identifiers) {
+        Object templateKey = QueryTemplates.retrieverKey(getClass(), AbstractProductsRetriever.class, productQueryHook, variantQueryHook);
+        return QueryTemplates.generate(templateKey, identifiers, this::buildQuery);
+    }
+
+    private String buildQuery(List<String> identifiers) {
         FilterEqualTypeInput skuFilter = new FilterEqualTypeInput().setIn(identifiers);
         ProductAttributeFilterInput filter = new ProductAttributeFilterInput().setSku(skuFilter);
         QueryQuery.ProductsArgumentsDefinition searchArgs = s -> s.filter(filter);
@@ -139,6 +145,15 @@ public abstract class AbstractProductsRetriever extends AbstractRetriever {
             .products(searchArgs, queryArgs)).toString();
     }
 
+    @Override
+    public void registerQuery() {
+        if (query == null && identifiers != null) {
+            client.registerQuery(() -> generateQuery(identifiers));
+        } else {
+            super.registerQuery();
+        }
+    }
+
     /**
      * Execute the GraphQL query with the GraphQL client.
      *
@@ -51,6 +51,17 @@ public abstract class AbstractRetriever {
         this.query = query;
     }
 
+    /**
+     * Registers the query of this retriever with the GraphQL client, so that it can be fetched together with the queries of other
+     * retrievers in a single request. This has no effect if query batching is not enabled. The query is only generated when the batch
+     * is fetched, the first time any query is executed, so it may still be customized after it was registered.
+     */
+    public void registerQuery() {
+        if (query != null) {
+            client.registerQuery(() -> query);
+        }
+    }
+
     /**
      * Executes the query and parses the response.
      */
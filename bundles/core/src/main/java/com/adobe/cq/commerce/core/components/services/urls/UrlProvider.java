@@ -15,7 +15,9 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.services.urls;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.annotation.Nullable;
@@ -159,6 +161,48 @@ public interface UrlProvider {
      */
     String toCategoryUrl(@Nullable SlingHttpServletRequest request, @Nullable Page page, String categoryIdentifier);
 
+    /**
+     * Returns the product page URLs for the given product identifiers. The implementation will query the needed URL attributes of all
+     * products at once to generate complete URLs based on the configuration.
+     * <p>
+     * This method should be used instead of {@link #toProductUrl(SlingHttpServletRequest, Page, String)} if the component renders links
+     * to multiple products.
+     *
+     * @param request The current Sling HTTP request.
+     * @param page The target page, if any. This parameter can be null if the URL template does not use the <code>${page}</code> parameter.
+     * @param productIdentifiers The product identifiers.
+     * @return The product URLs by product identifier, in the order of the given identifiers.
+     */
+    default Map<String, String> toProductUrls(@Nullable SlingHttpServletRequest request, @Nullable Page page,
+        Collection<String> productIdentifiers) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String productIdentifier : productIdentifiers) {
+            urls.put(productIdentifier, toProductUrl(request, page, productIdentifier));
+        }
+        return urls;
+    }
+
+    /**
+     * Returns the category page URLs for the given category identifiers. The implementation will query the needed URL attributes of all
+     * categories at once to generate complete URLs based on the configuration.
+     * <p>
+     * This method should be used instead of {@link #toCategoryUrl(SlingHttpServletRequest, Page, String)} if the component renders links
+     * to multiple categories.
+     *
+     * @param request The current Sling HTTP request.
+     * @param page The target page, if any. This parameter can be null if the URL template does not use the <code>${page}</code> parameter.
+     * @param categoryIdentifiers The category identifiers.
+     * @return The category URLs by category identifier, in the order of the given identifiers.
+     */
+    default Map<String, String> toCategoryUrls(@Nullable SlingHttpServletRequest request, @Nullable Page page,
+        Collection<String> categoryIdentifiers) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String categoryIdentifier : categoryIdentifiers) {
+            urls.put(categoryIdentifier, toCategoryUrl(request, page, categoryIdentifier));
+        }
+        return urls;
+    }
+
     /**
      * Returns the product identifier (sku) used in the given Sling HTTP request. The product identifier can be used to load product data.
      *
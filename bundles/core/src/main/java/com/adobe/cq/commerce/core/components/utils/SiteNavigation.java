@@ -23,9 +23,11 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adobe.cq.commerce.core.components.internal.services.GenericPageCache;
 import com.adobe.cq.wcm.launches.utils.LaunchUtils;
 import com.day.cq.commons.inherit.HierarchyNodeInheritanceValueMap;
 import com.day.cq.commons.inherit.InheritanceValueMap;
@@ -115,6 +117,30 @@ public class SiteNavigation {
      */
     @Nullable
     protected static Page getGenericPage(String pageTypeProperty, Page page) {
+        // The same lookups are done by many components of a page, so the path is cached at least for the resource resolver of the page
+        Resource contentResource = page.getContentResource();
+        ResourceResolver resourceResolver = contentResource != null ? contentResource.getResourceResolver() : null;
+        GenericPageCache genericPageCache = resourceResolver != null ? resourceResolver.adaptTo(GenericPageCache.class) : null;
+        String genericPagePath = genericPageCache != null
+            ? genericPageCache.getGenericPagePath(pageTypeProperty, page, () -> getGenericPagePath(pageTypeProperty, page))
+            : getGenericPagePath(pageTypeProperty, page);
+
+        if (StringUtils.isBlank(genericPagePath)) {
+            LOGGER.warn("Page property {} not found at {}", pageTypeProperty, page.getPath());
+            return null;
+        }
+
+        PageManager pageManager = page.getPageManager();
+        Page genericPage = pageManager.getPage(genericPagePath);
+        if (genericPage == null) {
+            LOGGER.warn("No page found at {}", genericPagePath);
+            return null;
+        }
+
+        return genericPage;
+    }
+
+    private static String getGenericPagePath(String pageTypeProperty, Page page) {
         // We first lookup the property from the current page up the hierarchy
         // If the page is in a Launch, the property can be found if the Launch includes the landing-page
         InheritanceValueMap properties = new HierarchyNodeInheritanceValueMap(page.getContentResource());
@@ -141,19 +167,7 @@ public class SiteNavigation {
             }
         }
 
-        if (StringUtils.isBlank(genericPagePath)) {
-            LOGGER.warn("Page property {} not found at {}", pageTypeProperty, page.getPath());
-            return null;
-        }
-
-        PageManager pageManager = page.getPageManager();
-        Page genericPage = pageManager.getPage(genericPagePath);
-        if (genericPage == null) {
-            LOGGER.warn("No page found at {}", genericPagePath);
-            return null;
-        }
-
-        return genericPage;
+        return genericPagePath;
     }
 
     /**
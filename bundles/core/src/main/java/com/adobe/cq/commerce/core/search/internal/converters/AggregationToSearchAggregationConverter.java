@@ -15,7 +15,6 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.search.internal.converters;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,14 +34,21 @@ public class AggregationToSearchAggregationConverter implements Function<Aggrega
 
     private final Map<String, String> appliedFilters;
 
-    private final List<FilterAttributeMetadata> availableFilters;
+    private final Map<String, FilterAttributeMetadata> availableFilters;
 
     private static final String PRICE_IDENTIFIER = "price";
 
     public AggregationToSearchAggregationConverter(final Map<String, String> appliedFilters,
                                                    final List<FilterAttributeMetadata> availableFilters) {
+        this(appliedFilters, availableFilters == null ? null
+            : availableFilters.stream()
+                .collect(Collectors.toMap(FilterAttributeMetadata::getAttributeCode, Function.identity(), (first, second) -> first)));
+    }
+
+    public AggregationToSearchAggregationConverter(final Map<String, String> appliedFilters,
+                                                   final Map<String, FilterAttributeMetadata> availableFilters) {
         this.appliedFilters = appliedFilters == null ? new HashMap<>() : appliedFilters;
-        this.availableFilters = availableFilters == null ? new ArrayList<>() : availableFilters;
+        this.availableFilters = availableFilters == null ? new HashMap<>() : availableFilters;
     }
 
     @Override
@@ -56,14 +62,13 @@ public class AggregationToSearchAggregationConverter implements Function<Aggrega
         // provided by the introspection query
         final String identifier = aggregation.getAttributeCode();
 
-        final Optional<FilterAttributeMetadata> attributeMetadata = availableFilters.stream()
-            .filter(filterCandidate -> filterCandidate.getAttributeCode().equals(identifier)).findFirst();
+        final Optional<FilterAttributeMetadata> attributeMetadata = Optional.ofNullable(availableFilters.get(identifier));
         final boolean filterable = attributeMetadata.isPresent();
 
         SearchAggregationImpl searchAggregation = new SearchAggregationImpl();
         searchAggregation.setFilterable(filterable);
         searchAggregation.setCount(aggregation.getCount() != null ? aggregation.getCount() : 0);
-        searchAggregation.setOptions(getOptions(aggregation, appliedFilters));
+        searchAggregation.setOptions(getOptions(aggregation, attributeMetadata.orElse(null), appliedFilters));
         searchAggregation.setDisplayLabel(aggregation.getLabel());
         searchAggregation.setIdentifier(identifier);
         searchAggregation.setRemoveFilters(getRemoveFilters(aggregation, appliedFilters));
@@ -78,10 +83,7 @@ public class AggregationToSearchAggregationConverter implements Function<Aggrega
     }
 
     private List<SearchAggregationOption> getOptions(final Aggregation aggregation,
-        final Map<String, String> appliedFilters) {
-
-        final FilterAttributeMetadata filterAttributeMetadata = availableFilters.stream()
-            .filter(item -> item.getAttributeCode().equals(aggregation.getAttributeCode())).findFirst().orElse(null);
+        final FilterAttributeMetadata filterAttributeMetadata, final Map<String, String> appliedFilters) {
 
         AggregationOptionToSearchAggregationOptionConverter converter = new AggregationOptionToSearchAggregationOptionConverter(
             aggregation.getAttributeCode(), filterAttributeMetadata, appliedFilters);
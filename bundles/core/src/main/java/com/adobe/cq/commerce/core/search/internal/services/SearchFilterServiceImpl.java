@@ -15,19 +15,29 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.search.internal.services;
 
+import java.time.Clock;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.SyntheticResource;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.Designate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.core.components.internal.client.MagentoGraphqlClientCacheKey;
 import com.adobe.cq.commerce.core.search.internal.converters.FilterAttributeMetadataConverter;
 import com.adobe.cq.commerce.core.search.models.FilterAttributeMetadata;
 import com.adobe.cq.commerce.core.search.services.SearchFilterService;
@@ -38,7 +48,6 @@ import com.adobe.cq.commerce.magento.graphql.CustomAttributeMetadata;
 import com.adobe.cq.commerce.magento.graphql.CustomAttributeMetadataQueryDefinition;
 import com.adobe.cq.commerce.magento.graphql.Operations;
 import com.adobe.cq.commerce.magento.graphql.Query;
-import com.adobe.cq.commerce.magento.graphql.QueryQuery;
 import com.adobe.cq.commerce.magento.graphql.__InputValue;
 import com.adobe.cq.commerce.magento.graphql.__Type;
 import com.adobe.cq.commerce.magento.graphql.__TypeQuery;
@@ -47,26 +56,108 @@ import com.adobe.cq.commerce.magento.graphql.gson.Error;
 import com.day.cq.wcm.api.Page;
 
 @Component(service = SearchFilterService.class)
+@Designate(ocd = SearchFilterServiceConfiguration.class)
 public class SearchFilterServiceImpl implements SearchFilterService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SearchFilterServiceImpl.class);
 
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private long cacheTtl;
+    Clock clock = Clock.systemUTC();
+
+    @Activate
+    @Modified
+    protected void activate(SearchFilterServiceConfiguration configuration) {
+        cacheTtl = TimeUnit.SECONDS.toMillis(Math.max(0, configuration.cacheTtl()));
+        invalidateCache();
+    }
+
     @Override
     public List<FilterAttributeMetadata> retrieveCurrentlyAvailableCommerceFilters(final Page page) {
+        return retrieveCurrentlyAvailableCommerceFiltersAsync(page, false).join();
+    }
+
+    @Override
+    public CompletableFuture<List<FilterAttributeMetadata>> retrieveCurrentlyAvailableCommerceFiltersAsync(final Page page) {
+        return retrieveCurrentlyAvailableCommerceFiltersAsync(page, true);
+    }
+
+    @Override
+    public void invalidateCache() {
+        cache.clear();
+    }
+
+    private CompletableFuture<List<FilterAttributeMetadata>> retrieveCurrentlyAvailableCommerceFiltersAsync(final Page page,
+        boolean async) {
+        // The client is created on the calling thread as it reads the configuration with the resource resolver of the page, only the
+        // queries are executed asynchronously. The attribute metadata query depends on the result of the introspection query.
+        final MagentoGraphqlClient magentoGraphqlClient = adaptToGraphqlClient(page);
+        if (magentoGraphqlClient == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        final String cacheKey = cacheTtl > 0 ? MagentoGraphqlClientCacheKey.of(magentoGraphqlClient) : null;
+        if (cacheKey == null) {
+            return retrieveCurrentlyAvailableCommerceFilters(magentoGraphqlClient, async);
+        }
+
+        long now = clock.millis();
+        CacheEntry entry = cache.get(cacheKey);
+        if (entry != null && now - entry.created < cacheTtl * 2) {
+            if (now - entry.created >= cacheTtl && entry.refreshing.compareAndSet(false, true)) {
+                // serve the stale entry and refresh it in the background, unless it got invalidated in the meantime
+                LOGGER.debug("Refreshing available search filters for {}", cacheKey);
+                retrieveCurrentlyAvailableCommerceFilters(magentoGraphqlClient, true).whenComplete((filters, ex) -> {
+                    if (ex != null || filters.isEmpty()) {
+                        LOGGER.warn("Failed to refresh available search filters for {}", cacheKey, ex);
+                        entry.refreshing.set(false);
+                    } else {
+                        cache.replace(cacheKey, entry, new CacheEntry(filters, clock.millis()));
+                    }
+                });
+            }
+            return CompletableFuture.completedFuture(entry.filters);
+        }
+
+        return retrieveCurrentlyAvailableCommerceFilters(magentoGraphqlClient, async).thenApply(filters -> {
+            // empty filters are most likely caused by errors, so they are not cached
+            if (filters.isEmpty()) {
+                return filters;
+            }
+            CacheEntry newEntry = new CacheEntry(filters, clock.millis());
+            cache.put(cacheKey, newEntry);
+            return newEntry.filters;
+        });
+    }
+
+    private MagentoGraphqlClient adaptToGraphqlClient(final Page page) {
         // This is used to configure the cache in the GraphqlClient with a cache name of
         // --> com.adobe.cq.commerce.core.search.services.SearchFilterService
+        // The client is adapted from a resource and not from the request, so it has no request scoped query batch, product entities
+        // or call recorder and does not keep the resource resolver. This is what allows the background refresh to outlive the request.
         return Optional.ofNullable(page.adaptTo(Resource.class))
             .map(r -> new SyntheticResource(r.getResourceResolver(), r.getPath(), SearchFilterService.class.getName()))
             .map(r -> r.adaptTo(MagentoGraphqlClient.class))
-            .map(this::retrieveCurrentlyAvailableCommerceFilters)
-            .orElseGet(Collections::emptyList);
+            .orElse(null);
     }
 
-    private List<FilterAttributeMetadata> retrieveCurrentlyAvailableCommerceFilters(MagentoGraphqlClient magentoGraphqlClient) {
-        // First we query Magento for the required attribute and filter information
-        final List<__InputValue> availableFilters = fetchAvailableSearchFilters(magentoGraphqlClient);
-        final List<Attribute> attributes = fetchAttributeMetadata(magentoGraphqlClient, availableFilters);
-        // Then we combine this data into a useful set of data usable by other systems
+    private CompletableFuture<List<FilterAttributeMetadata>> retrieveCurrentlyAvailableCommerceFilters(
+        MagentoGraphqlClient magentoGraphqlClient, boolean async) {
+        if (!async) {
+            // First we query Magento for the required attribute and filter information
+            final List<__InputValue> availableFilters = fetchAvailableSearchFilters(magentoGraphqlClient);
+            final List<Attribute> attributes = fetchAttributeMetadata(magentoGraphqlClient, availableFilters);
+            // Then we combine this data into a useful set of data usable by other systems
+            return CompletableFuture.completedFuture(convert(availableFilters, attributes));
+        }
+
+        return magentoGraphqlClient.executeAsync(generateAvailableSearchFiltersQuery())
+            .thenApply(this::extractAvailableSearchFilters)
+            .thenCompose(availableFilters -> magentoGraphqlClient.executeAsync(generateAttributeMetadataQuery(availableFilters))
+                .thenApply(response -> convert(availableFilters, extractAttributeMetadata(response))));
+    }
+
+    private List<FilterAttributeMetadata> convert(final List<__InputValue> availableFilters, final List<Attribute> attributes) {
         FilterAttributeMetadataConverter converter = new FilterAttributeMetadataConverter(attributes);
         return availableFilters.stream().map(converter).collect(Collectors.toList());
     }
@@ -79,6 +170,10 @@ public class SearchFilterServiceImpl implements SearchFilterService {
             return Collections.emptyList();
         }
 
+        return extractAttributeMetadata(magentoGraphqlClient.execute(generateAttributeMetadataQuery(availableFilters)));
+    }
+
+    private String generateAttributeMetadataQuery(final List<__InputValue> availableFilters) {
         List<AttributeInput> attributeInputs = availableFilters.stream().map(inputField -> {
             AttributeInput attributeInput = new AttributeInput();
             attributeInput.setAttributeCode(inputField.getName());
@@ -91,10 +186,10 @@ public class SearchFilterServiceImpl implements SearchFilterService {
                 .attributeCode()
                 .attributeType()
                 .inputType());
-        final QueryQuery attributeQuery = Operations.query(query -> query.customAttributeMetadata(attributeInputs, queryArgs));
-
-        final GraphqlResponse<Query, Error> response = magentoGraphqlClient.execute(attributeQuery.toString());
+        return Operations.query(query -> query.customAttributeMetadata(attributeInputs, queryArgs)).toString();
+    }
 
+    private List<Attribute> extractAttributeMetadata(final GraphqlResponse<Query, Error> response) {
         // If there are errors we'll log them and return a safe but empty list
         if (CollectionUtils.isNotEmpty(response.getErrors())) {
             response.getErrors()
@@ -119,6 +214,10 @@ public class SearchFilterServiceImpl implements SearchFilterService {
             return Collections.emptyList();
         }
 
+        return extractAvailableSearchFilters(magentoGraphqlClient.execute(generateAvailableSearchFiltersQuery()));
+    }
+
+    private String generateAvailableSearchFiltersQuery() {
         __TypeQueryDefinition typeQuery = q -> q
             .name()
             .description()
@@ -126,10 +225,10 @@ public class SearchFilterServiceImpl implements SearchFilterService {
                 .name()
                 .type(__TypeQuery::name));
 
-        String query = Operations.query(q -> q.__type("ProductAttributeFilterInput", typeQuery)).toString();
-
-        final GraphqlResponse<Query, Error> response = magentoGraphqlClient.execute(query);
+        return Operations.query(q -> q.__type("ProductAttributeFilterInput", typeQuery)).toString();
+    }
 
+    private List<__InputValue> extractAvailableSearchFilters(final GraphqlResponse<Query, Error> response) {
         // If there are errors in the response we'll log them out and return a safe but empty value
         if (CollectionUtils.isNotEmpty(response.getErrors())) {
             response.getErrors()
@@ -140,4 +239,15 @@ public class SearchFilterServiceImpl implements SearchFilterService {
         __Type type = response.getData().__getType();
         return type != null ? type.getInputFields() : Collections.emptyList();
     }
+
+    private static class CacheEntry {
+        private final List<FilterAttributeMetadata> filters;
+        private final long created;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CacheEntry(List<FilterAttributeMetadata> filters, long created) {
+            this.filters = Collections.unmodifiableList(filters);
+            this.created = created;
+        }
+    }
 }
@@ -23,12 +23,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -144,12 +147,17 @@ public class SearchResultsServiceImpl implements SearchResultsService {
             return new ImmutablePair<>(null, searchResultsSet);
         }
 
+        // We will use the search filter service to retrieve all of the potential available filters the commerce system
+        // has available for querying against. They do not depend on the category, so they are fetched while the category is queried.
+        CompletableFuture<List<FilterAttributeMetadata>> availableFiltersFuture = searchFilterService
+            .retrieveCurrentlyAvailableCommerceFiltersAsync(page);
+
         // Next we generate the graphql category query and actually query the commerce system
         CategoryTree category = null;
-        if (generateCategoryQueryString(categoryRetriever).isPresent()) {
-            String categoryQueryString = generateCategoryQueryString(categoryRetriever).get();
-            LOGGER.debug("Generated category query string {}", categoryQueryString);
-            GraphqlResponse<Query, Error> categoryResponse = magentoGraphqlClient.execute(categoryQueryString);
+        Optional<String> categoryQueryString = generateCategoryQueryString(categoryRetriever);
+        if (categoryQueryString.isPresent()) {
+            LOGGER.debug("Generated category query string {}", categoryQueryString.get());
+            GraphqlResponse<Query, Error> categoryResponse = magentoGraphqlClient.execute(categoryQueryString.get());
             if (CollectionUtils.isEmpty(categoryResponse.getErrors()) && categoryResponse.getData() != null) {
                 Query categoryData = categoryResponse.getData();
                 List<CategoryTree> categories = categoryData.getCategoryList();
@@ -160,9 +168,10 @@ public class SearchResultsServiceImpl implements SearchResultsService {
             }
         }
 
-        // We will use the search filter service to retrieve all of the potential available filters the commerce system
-        // has available for querying against
-        List<FilterAttributeMetadata> availableFilters = searchFilterService.retrieveCurrentlyAvailableCommerceFilters(page);
+        // The products query depends on both, the category and the available filters
+        // Index the available filters once, they are looked up for every applied filter and every aggregation
+        Map<String, FilterAttributeMetadata> availableFilters = availableFiltersFuture.join().stream()
+            .collect(Collectors.toMap(FilterAttributeMetadata::getAttributeCode, Function.identity(), (first, second) -> first));
         SorterKey currentSorterKey = prepareSorting(mutableSearchOptions, searchResultsSet);
 
         String productsQueryString = generateProductsQueryString(mutableSearchOptions, availableFilters, productQueryHook,
@@ -265,21 +274,19 @@ public class SearchResultsServiceImpl implements SearchResultsService {
 
     private String generateProductsQueryString(
         final SearchOptions searchOptions,
-        final List<FilterAttributeMetadata> availableFilters,
+        final Map<String, FilterAttributeMetadata> availableFilters,
         final Consumer<ProductInterfaceQuery> productQueryHook,
         final SorterKey sorterKey) {
         GenericProductAttributeFilterInput filterInputs = new GenericProductAttributeFilterInput();
 
         searchOptions.getAllFilters().entrySet()
             .stream()
-            .filter(field -> availableFilters.stream()
-                .anyMatch(item -> item.getAttributeCode().equals(field.getKey())))
+            .filter(field -> availableFilters.containsKey(field.getKey()))
             .forEach(filterCandidate -> {
                 String code = filterCandidate.getKey();
                 String value = filterCandidate.getValue();
                 // this should be safe as we've filtered out search options already for those only with filter attributes
-                final FilterAttributeMetadata filterAttributeMetadata = availableFilters.stream()
-                    .filter(item -> item.getAttributeCode().equals(code)).findFirst().get();
+                final FilterAttributeMetadata filterAttributeMetadata = availableFilters.get(code);
 
                 if ("FilterEqualTypeInput".equals(filterAttributeMetadata.getFilterInputType())) {
                     FilterEqualTypeInput filter = new FilterEqualTypeInput();
@@ -456,15 +463,15 @@ public class SearchResultsServiceImpl implements SearchResultsService {
      *
      * @param aggregations the response aggregation data
      * @param appliedFilters the currently applied filters
-     * @param availableFilters the filters that are available
+     * @param availableFilters the filters that are available, indexed by their attribute code
      * @return enriched {@link SearchAggregation} objects
      */
     private List<SearchAggregation> extractSearchAggregationsFromResponse(
         final List<Aggregation> aggregations,
         final Map<String, String> appliedFilters,
-        final List<FilterAttributeMetadata> availableFilters) {
+        final Map<String, FilterAttributeMetadata> availableFilters) {
 
-        if (CollectionUtils.isEmpty(aggregations) || CollectionUtils.isEmpty(availableFilters)) {
+        if (CollectionUtils.isEmpty(aggregations) || MapUtils.isEmpty(availableFilters)) {
             return Collections.emptyList();
         }
 
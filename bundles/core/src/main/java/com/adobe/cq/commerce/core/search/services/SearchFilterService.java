@@ -16,6 +16,7 @@
 package com.adobe.cq.commerce.core.search.services;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -36,4 +37,23 @@ public interface SearchFilterService {
      */
     List<FilterAttributeMetadata> retrieveCurrentlyAvailableCommerceFilters(Page page);
 
+    /**
+     * Asynchronous variant of {@link #retrieveCurrentlyAvailableCommerceFilters(Page)}. This allows callers to fetch the available
+     * search filters while doing other work, for example querying the current category.
+     * <p>
+     * The default implementation retrieves the filters synchronously.
+     *
+     * @param page The current page being rendered.
+     * @return a future completed with a list of {@link FilterAttributeMetadata} of available search filters
+     */
+    default CompletableFuture<List<FilterAttributeMetadata>> retrieveCurrentlyAvailableCommerceFiltersAsync(Page page) {
+        return CompletableFuture.completedFuture(retrieveCurrentlyAvailableCommerceFilters(page));
+    }
+
+    /**
+     * Invalidates all search filters cached by this service, for example after the catalog schema of the commerce backend changed.
+     * <p>
+     * The default implementation does nothing.
+     */
+    default void invalidateCache() {}
 }
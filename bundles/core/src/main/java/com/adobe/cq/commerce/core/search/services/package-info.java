@@ -13,7 +13,7 @@
  ~ See the License for the specific language governing permissions and
  ~ limitations under the License.
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
-@Version("1.12.0")
+@Version("1.13.0")
 package com.adobe.cq.commerce.core.search.services;
 
 import org.osgi.annotation.versioning.Version;
\ No newline at end of file
@@ -0,0 +1,74 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphqlClientExecutorTest {
+
+    @Rule
+    public final OsgiContext context = new OsgiContext();
+
+    @Test
+    public void testExecuteOnThreadPool() throws Exception {
+        GraphqlClientExecutor executor = context.registerInjectActivateService(new GraphqlClientExecutor());
+        String threadName = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor).get(5, TimeUnit.SECONDS);
+        assertTrue(threadName.startsWith("cif-graphql-client-"));
+    }
+
+    @Test
+    public void testCallerRunsWhenSaturated() throws Exception {
+        GraphqlClientExecutor executor = context.registerInjectActivateService(new GraphqlClientExecutor(),
+            "threadPoolSize", 1, "queueSize", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release)); // occupies the thread
+        executor.execute(() -> await(release)); // occupies the queue
+
+        String caller = Thread.currentThread().getName();
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor);
+        assertTrue(future.isDone());
+        assertEquals(caller, future.get());
+        release.countDown();
+    }
+
+    @Test
+    public void testCallerRunsAfterDeactivation() throws Exception {
+        GraphqlClientExecutor executor = context.registerInjectActivateService(new GraphqlClientExecutor());
+        assertNotEquals(Thread.currentThread().getName(),
+            CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor).get(5, TimeUnit.SECONDS));
+        executor.deactivate();
+        assertEquals(Thread.currentThread().getName(),
+            CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor).get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
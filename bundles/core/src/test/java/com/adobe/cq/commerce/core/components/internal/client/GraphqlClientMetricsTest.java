@@ -0,0 +1,117 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.commons.metrics.Counter;
+import org.apache.sling.commons.metrics.MetricsService;
+import org.apache.sling.commons.metrics.Timer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.graphql.client.HttpMethod;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GraphqlClientMetricsTest {
+
+    private static final String CACHE_NAME = "venia/components/commerce/product";
+
+    private final GraphqlClientMetrics metrics = new GraphqlClientMetrics();
+    private final MetricsService metricsService = mock(MetricsService.class);
+    private final Timer timer = mock(Timer.class);
+    private final Counter counter = mock(Counter.class);
+
+    @Before
+    public void setUp() {
+        when(metricsService.timer(anyString())).thenReturn(timer);
+        when(metricsService.counter(anyString())).thenReturn(counter);
+        Whitebox.setInternalState(metrics, "metricsService", metricsService);
+        metrics.activate(mockConfiguration(1000));
+    }
+
+    @Test
+    public void testRecord() {
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        response.setData(new Query());
+        metrics.record(CACHE_NAME, HttpMethod.GET, true, response, 5000, "{products{total_count}}");
+
+        verify(metricsService).timer("cif.graphql." + CACHE_NAME + ".GET.time");
+        verify(timer).update(5000, TimeUnit.NANOSECONDS);
+        verify(metricsService).counter("cif.graphql." + CACHE_NAME + ".GET.client");
+        verify(metricsService, never()).counter("cif.graphql." + CACHE_NAME + ".GET.local");
+
+        metrics.record(CACHE_NAME, HttpMethod.POST, false, response, 5000, "{products{total_count}}");
+        verify(metricsService).counter("cif.graphql." + CACHE_NAME + ".POST.local");
+        verify(counter, times(2)).increment();
+    }
+
+    @Test
+    public void testRecordErrors() {
+        Error error = new Error();
+        error.setCategory(MagentoGraphqlClient.RUNTIME_ERROR_CATEGORY);
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        response.setErrors(Collections.singletonList(error));
+
+        metrics.record(CACHE_NAME, HttpMethod.GET, true, response, TimeUnit.SECONDS.toNanos(2), "{products{total_count}}");
+        verify(metricsService).counter("cif.graphql." + CACHE_NAME + ".GET.error." + MagentoGraphqlClient.RUNTIME_ERROR_CATEGORY);
+
+        response.setErrors(Collections.singletonList(new Error()));
+        metrics.record(null, HttpMethod.GET, true, response, 0, "{products{total_count}}");
+        verify(metricsService).counter("cif.graphql.default.GET.error.unknown");
+    }
+
+    @Test
+    public void testQueryShape() {
+        assertEquals("{products(filter:{sku:{eq:\"?\"}},pageSize:?,currentPage:?){items{sku,name}}}", GraphqlClientMetrics
+            .getQueryShape("{products(filter:{sku:{eq:\"MJ\\\"01\"}},pageSize:20,currentPage:-1){items{sku,name}}}"));
+        assertEquals("{categoryList(filters:{category_uid:{in:[\"?\",\"?\"]}}){uid}}", GraphqlClientMetrics.getQueryShape(
+            "{categoryList(filters:{category_uid:{in:[\"MTI=\",\"MTM=\"]}}){uid}}"));
+        assertEquals("{products(filter:{price:{from:?, to:?}}){items{price_range__alias:price_range{minimum_price{value}}}}}",
+            GraphqlClientMetrics.getQueryShape(
+                "{products(filter:{price:{from:10.5, to:1e3}}){items{price_range__alias:price_range{minimum_price{value}}}}}"));
+        assertNull(GraphqlClientMetrics.getQueryShape(null));
+    }
+
+    private static GraphqlClientMetricsConfiguration mockConfiguration(int slowQueryThreshold) {
+        return new GraphqlClientMetricsConfiguration() {
+            @Override
+            public int slowQueryThreshold() {
+                return slowQueryThreshold;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return GraphqlClientMetricsConfiguration.class;
+            }
+        };
+    }
+}
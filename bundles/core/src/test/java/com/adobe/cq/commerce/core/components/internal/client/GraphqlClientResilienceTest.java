@@ -0,0 +1,268 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class GraphqlClientResilienceTest {
+
+    private static final String QUERY = "{products{total_count}}";
+
+    private final GraphqlClientResilience resilience = new GraphqlClientResilience();
+    private final AtomicLong time = new AtomicLong(1000);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        GraphqlClientExecutor executor = mock(GraphqlClientExecutor.class);
+        doAnswer(invocation -> {
+            backgroundTasks.add((Runnable) invocation.getArguments()[0]);
+            return null;
+        }).when(executor).execute(any());
+        Whitebox.setInternalState(resilience, "executor", executor);
+        resilience.clock = time::get;
+    }
+
+    private Supplier<GraphqlResponse<Query, Error>> success() {
+        return () -> {
+            calls.incrementAndGet();
+            GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+            response.setData(new Query());
+            return response;
+        };
+    }
+
+    private Supplier<GraphqlResponse<Query, Error>> failure() {
+        return () -> {
+            calls.incrementAndGet();
+            throw new RuntimeException("Connection refused");
+        };
+    }
+
+    @Test
+    public void testLastKnownGoodServedOnFailure() {
+        resilience.activate(mockConfiguration(100, 0, 0, 0));
+
+        GraphqlResponse<Query, Error> response = resilience.execute("endpoint", QUERY, success());
+        assertSame(response, resilience.execute("endpoint", QUERY, failure()));
+        assertEquals(2, calls.get());
+
+        try {
+            resilience.execute("other-endpoint", QUERY, failure());
+            fail("Expected the failure without last known good response");
+        } catch (RuntimeException e) {
+            assertEquals("Connection refused", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMutationsPassedThrough() {
+        resilience.activate(mockConfiguration(100, 60, 50, 0));
+        String mutation = "mutation{createEmptyCart}";
+
+        GraphqlResponse<Query, Error> response = resilience.execute("endpoint", mutation, success());
+        assertNotSame(response, resilience.execute("endpoint", mutation, success()));
+        assertEquals(2, calls.get());
+
+        try {
+            resilience.execute("endpoint", mutation, failure());
+            fail("Expected the failure of the mutation");
+        } catch (RuntimeException e) {
+            assertEquals("Connection refused", e.getMessage());
+        }
+        assertTrue(backgroundTasks.isEmpty());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() {
+        resilience.activate(mockConfiguration(100, 60, 0, 0));
+
+        GraphqlResponse<Query, Error> response = resilience.execute("endpoint", QUERY, success());
+        assertSame(response, resilience.execute("endpoint", QUERY, success()));
+        assertEquals(1, calls.get());
+
+        // stale responses are served while a single refresh runs in the background
+        time.addAndGet(TimeUnit.SECONDS.toMillis(61));
+        assertSame(response, resilience.execute("endpoint", QUERY, success()));
+        assertSame(response, resilience.execute("endpoint", QUERY, success()));
+        assertEquals(1, backgroundTasks.size());
+        assertEquals(1, calls.get());
+
+        backgroundTasks.get(0).run();
+        assertEquals(2, calls.get());
+        GraphqlResponse<Query, Error> refreshed = resilience.execute("endpoint", QUERY, success());
+        assertNotSame(response, refreshed);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testLatencyBudget() throws Exception {
+        resilience.activate(mockConfiguration(100, 0, 50, 0));
+
+        GraphqlResponse<Query, Error> response = resilience.execute("endpoint", QUERY, success());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Supplier<GraphqlResponse<Query, Error>> slow = () -> {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            GraphqlResponse<Query, Error> slowResponse = success().get();
+            done.countDown();
+            return slowResponse;
+        };
+        assertSame(response, resilience.execute("endpoint", QUERY, slow));
+
+        // the slow call completes in the background and updates the last known good response
+        latch.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        GraphqlResponse<Query, Error> updated = resilience.execute("endpoint", QUERY, failure());
+        assertNotSame(response, updated);
+    }
+
+    @Test
+    public void testLatencyBudgetWithSaturatedThreadPool() throws Exception {
+        resilience.activate(mockConfiguration(100, 0, 50, 0, 1));
+        GraphqlResponse<Query, Error> response = resilience.execute("endpoint", QUERY, success());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Supplier<GraphqlResponse<Query, Error>> blocked = () -> {
+            started.countDown();
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return success().get();
+        };
+        try {
+            assertSame(response, resilience.execute("endpoint", QUERY, blocked));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // the only thread is busy, so the last known good response is served without calling the endpoint on the caller
+            assertSame(response, resilience.execute("endpoint", QUERY, success()));
+            assertEquals(1, calls.get());
+        } finally {
+            latch.countDown();
+            resilience.deactivate();
+        }
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        resilience.activate(mockConfiguration(0, 0, 0, 2));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                resilience.execute("endpoint", QUERY, failure());
+                fail("Expected a failure");
+            } catch (RuntimeException e) {
+                // expected
+            }
+        }
+        // the endpoint is not called anymore after the second failure
+        assertEquals(2, calls.get());
+
+        // other endpoints are still called
+        resilience.execute("other-endpoint", QUERY, success());
+        assertEquals(3, calls.get());
+
+        // after the cool-down a single call checks if the endpoint recovered
+        time.addAndGet(TimeUnit.SECONDS.toMillis(31));
+        resilience.execute("endpoint", QUERY, success());
+        resilience.execute("endpoint", QUERY, success());
+        assertEquals(5, calls.get());
+    }
+
+    private static GraphqlClientResilienceConfiguration mockConfiguration(int cacheSize, int refreshAfter, int latencyBudget,
+        int failureThreshold) {
+        return mockConfiguration(cacheSize, refreshAfter, latencyBudget, failureThreshold, 10);
+    }
+
+    private static GraphqlClientResilienceConfiguration mockConfiguration(int cacheSize, int refreshAfter, int latencyBudget,
+        int failureThreshold, int latencyBudgetThreadPoolSize) {
+        return new GraphqlClientResilienceConfiguration() {
+            @Override
+            public int cacheSize() {
+                return cacheSize;
+            }
+
+            @Override
+            public int maxStale() {
+                return 3600;
+            }
+
+            @Override
+            public int refreshAfter() {
+                return refreshAfter;
+            }
+
+            @Override
+            public int latencyBudget() {
+                return latencyBudget;
+            }
+
+            @Override
+            public int latencyBudgetThreadPoolSize() {
+                return latencyBudgetThreadPoolSize;
+            }
+
+            @Override
+            public int failureThreshold() {
+                return failureThreshold;
+            }
+
+            @Override
+            public int coolDown() {
+                return 30;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return GraphqlClientResilienceConfiguration.class;
+            }
+        };
+    }
+}
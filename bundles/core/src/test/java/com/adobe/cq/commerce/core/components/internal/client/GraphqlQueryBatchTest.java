@@ -0,0 +1,145 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Products;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.StoreConfig;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GraphqlQueryBatchTest {
+
+    @Test
+    public void testParse() {
+        GraphqlQueryBatch.ParsedQuery parsedQuery = GraphqlQueryBatch.parse(
+            "{products(filter:{sku:{eq:\"a{b}\"}}){items{sku}},storeConfig{store_code}}", 1);
+        assertNotNull(parsedQuery);
+        assertEquals("products__b1_0:products(filter:{sku:{eq:\"a{b}\"}}){items{sku}},storeConfig__b1_1:storeConfig{store_code}",
+            parsedQuery.getBody());
+
+        parsedQuery = GraphqlQueryBatch.parse("query Named { categoryList__cat: categoryList { uid } }", 0);
+        assertNotNull(parsedQuery);
+        assertEquals(" categoryList__b0_0:categoryList { uid } ", parsedQuery.getBody());
+    }
+
+    @Test
+    public void testParseUnsupportedQueries() {
+        assertNull(GraphqlQueryBatch.parse(null, 0));
+        assertNull(GraphqlQueryBatch.parse("mutation { foo }", 0));
+        assertNull(GraphqlQueryBatch.parse("query($sku: String) { products(filter:{sku:{eq:$sku}}) { total_count } }", 0));
+        assertNull(GraphqlQueryBatch.parse("{ ...Fields } fragment Fields on Query { storeConfig { store_code } }", 0));
+        assertNull(GraphqlQueryBatch.parse("{ storeConfig { store_code } } fragment Fields on Query { __typename }", 0));
+        assertNull(GraphqlQueryBatch.parse("{ storeConfig { store_code }", 0));
+        assertNull(GraphqlQueryBatch.parse("{}", 0));
+    }
+
+    @Test
+    public void testExecuteBatch() {
+        GraphqlQueryBatch batch = new GraphqlQueryBatch();
+        String productsQuery = "{products{total_count}}";
+        String storeConfigQuery = "{storeConfig{store_code}}";
+        Products products = new Products();
+        StoreConfig storeConfig = new StoreConfig();
+        List<String> executedQueries = new ArrayList<>();
+
+        batch.register(() -> productsQuery);
+        batch.register(() -> storeConfigQuery);
+
+        GraphqlResponse<Query, Error> response = batch.execute(productsQuery, query -> {
+            executedQueries.add(query);
+            Query data = new Query();
+            data.responseData.put("products__b0_0", products);
+            data.responseData.put("storeConfig__b1_0", storeConfig);
+            GraphqlResponse<Query, Error> mergedResponse = new GraphqlResponse<>();
+            mergedResponse.setData(data);
+            return mergedResponse;
+        });
+
+        assertEquals(Collections.singletonList("{products__b0_0:products{total_count} storeConfig__b1_0:storeConfig{store_code} }"),
+            executedQueries);
+        assertSame(products, response.getData().getProducts());
+
+        response = batch.execute(storeConfigQuery, query -> {
+            throw new IllegalStateException("Query must not be executed again");
+        });
+        assertSame(storeConfig, response.getData().getStoreConfig());
+    }
+
+    @Test
+    public void testExecuteBatchWithErrors() {
+        GraphqlQueryBatch batch = new GraphqlQueryBatch();
+        batch.register(() -> "{products{total_count}}");
+        batch.register(() -> "{storeConfig{store_code}}");
+
+        GraphqlResponse<Query, Error> response = batch.execute("{products{total_count}}", query -> {
+            GraphqlResponse<Query, Error> mergedResponse = new GraphqlResponse<>();
+            mergedResponse.setErrors(Collections.singletonList(new Error()));
+            return mergedResponse;
+        });
+        assertNull(response);
+
+        // batching is disabled after a failed batch
+        batch.register(() -> "{categoryList{uid}}");
+        response = batch.execute("{storeConfig{store_code}}", query -> {
+            throw new IllegalStateException("Query must not be executed in a batch");
+        });
+        assertNull(response);
+    }
+
+    @Test
+    public void testQueriesGeneratedWhenExecuted() {
+        GraphqlQueryBatch batch = new GraphqlQueryBatch();
+        AtomicReference<String> productsQuery = new AtomicReference<>("{products{total_count}}");
+        List<String> executedQueries = new ArrayList<>();
+        batch.register(productsQuery::get);
+        batch.register(() -> "{storeConfig{store_code}}");
+
+        // the query is customized after it was registered
+        productsQuery.set("{products{total_count,items{sku}}}");
+        batch.execute("{storeConfig{store_code}}", query -> {
+            executedQueries.add(query);
+            return null;
+        });
+
+        assertEquals(1, executedQueries.size());
+        assertTrue(executedQueries.get(0).contains("items{sku}"));
+    }
+
+    @Test
+    public void testExecuteSingleQuery() {
+        GraphqlQueryBatch batch = new GraphqlQueryBatch();
+        batch.register(() -> "{products{total_count}}");
+
+        GraphqlResponse<Query, Error> response = batch.execute("{products{total_count}}", query -> {
+            throw new IllegalStateException("Single queries must not be executed in a batch");
+        });
+        assertNull(response);
+    }
+}
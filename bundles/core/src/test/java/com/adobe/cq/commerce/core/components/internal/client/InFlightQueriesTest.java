@@ -0,0 +1,125 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InFlightQueriesTest {
+
+    private InFlightQueries inFlightQueries;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        inFlightQueries = new InFlightQueries();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentIdenticalQueriesShareOneCall() throws Exception {
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch releaseCall = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+
+        Future<GraphqlResponse<Query, Error>> leader = executor.submit(() -> inFlightQueries.execute("client", "{query}", () -> {
+            calls.incrementAndGet();
+            callStarted.countDown();
+            await(releaseCall);
+            return response;
+        }));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<GraphqlResponse<Query, Error>> followerResponse = new AtomicReference<>();
+        Thread follower = new Thread(() -> followerResponse.set(inFlightQueries.execute("client", "{query}", () -> {
+            calls.incrementAndGet();
+            return new GraphqlResponse<>();
+        })));
+        follower.start();
+        // wait until the follower is blocked waiting for the call in flight
+        long timeout = System.currentTimeMillis() + 5000;
+        while (follower.getState() != Thread.State.WAITING && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        releaseCall.countDown();
+        follower.join(5000);
+
+        assertSame(response, leader.get(5, TimeUnit.SECONDS));
+        assertSame(response, followerResponse.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, inFlightQueries.size());
+    }
+
+    @Test
+    public void testDifferentClientsDoNotShareCalls() {
+        AtomicInteger calls = new AtomicInteger();
+        inFlightQueries.execute("client-a", "{query}", () -> {
+            // a nested call for another client must not wait for the call in flight
+            inFlightQueries.execute("client-b", "{query}", () -> {
+                calls.incrementAndGet();
+                return new GraphqlResponse<>();
+            });
+            calls.incrementAndGet();
+            return new GraphqlResponse<>();
+        });
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testExceptionsArePropagated() {
+        try {
+            inFlightQueries.execute("client", "{query}", () -> {
+                throw new IllegalStateException("foobar");
+            });
+            fail("Exception expected");
+        } catch (IllegalStateException ex) {
+            assertEquals("foobar", ex.getMessage());
+        }
+        assertEquals(0, inFlightQueries.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -21,6 +21,8 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.Cookie;
@@ -41,6 +43,7 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
 
 import com.adobe.cq.commerce.core.components.client.MagentoGraphqlClient;
 import com.adobe.cq.commerce.core.components.internal.services.ComponentsConfigurationAdapterFactory;
@@ -49,10 +52,13 @@ import com.adobe.cq.commerce.core.testing.MockLaunch;
 import com.adobe.cq.commerce.graphql.client.CachingStrategy;
 import com.adobe.cq.commerce.graphql.client.CachingStrategy.DataFetchingPolicy;
 import com.adobe.cq.commerce.graphql.client.GraphqlClient;
+import com.adobe.cq.commerce.graphql.client.GraphqlRequest;
 import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
 import com.adobe.cq.commerce.graphql.client.HttpMethod;
 import com.adobe.cq.commerce.graphql.client.RequestOptions;
+import com.adobe.cq.commerce.magento.graphql.Products;
 import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.StoreConfig;
 import com.adobe.cq.commerce.magento.graphql.gson.Error;
 import com.adobe.cq.commerce.magento.graphql.gson.QueryDeserializer;
 import com.adobe.cq.launches.api.Launch;
@@ -65,13 +71,19 @@ import io.wcm.testing.mock.aem.junit.AemContextCallback;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItems;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -205,6 +217,29 @@ public class MagentoGraphqlClientImplTest {
         assertEquals(DataFetchingPolicy.CACHE_FIRST, cachingStrategy.getDataFetchingPolicy());
     }
 
+    @Test
+    public void testClientProfileSharedForSameConfiguration() {
+        Page page = spy(context.pageManager().getPage(PAGE_A));
+        Resource pageResource = spy(page.adaptTo(Resource.class));
+        when(page.adaptTo(Resource.class)).thenReturn(pageResource);
+        when(pageResource.adaptTo(GraphqlClient.class)).thenReturn(graphqlClient);
+        when(pageResource.adaptTo(ComponentsConfiguration.class)).thenReturn(MOCK_CONFIGURATION_OBJECT);
+        Resource resource = context.resourceResolver().getResource(PRODUCT_COMPONENT_PATH);
+
+        new MagentoGraphqlClientImpl(resource, page, null).execute("{dummy}");
+        new MagentoGraphqlClientImpl(resource, page, null).execute("{dummy}");
+        new MagentoGraphqlClientImpl(pageResource, page, null).execute("{dummy}");
+
+        ArgumentCaptor<RequestOptions> captor = ArgumentCaptor.forClass(RequestOptions.class);
+        verify(graphqlClient, times(3)).execute(Mockito.any(), Mockito.any(), Mockito.any(), captor.capture());
+        List<RequestOptions> requestOptions = captor.getAllValues();
+
+        // clients for the same configuration and cache name share the same request options
+        assertSame(requestOptions.get(0), requestOptions.get(1));
+        assertNotSame(requestOptions.get(0), requestOptions.get(2));
+        assertEquals(requestOptions.get(0).getHeaders().size(), requestOptions.get(2).getHeaders().size());
+    }
+
     @Test
     public void testMagentoStoreProperty() {
         // Get page which has the magentoStore property in its jcr:content node
@@ -374,6 +409,154 @@ public class MagentoGraphqlClientImplTest {
         assertEquals(MagentoGraphqlClient.RUNTIME_ERROR_CATEGORY, response.getErrors().get(0).getCategory());
     }
 
+    @Test
+    public void testQueryBatching() {
+        ValueMap configuration = new ValueMapDecorator(ImmutableMap.of("cq:graphqlClient", "default", "magentoStore",
+            "my-store", "enableQueryBatching", true));
+        Page page = spy(context.pageManager().getPage(PAGE_A));
+        Resource pageResource = spy(page.adaptTo(Resource.class));
+        when(page.adaptTo(Resource.class)).thenReturn(pageResource);
+        when(pageResource.adaptTo(GraphqlClient.class)).thenReturn(graphqlClient);
+        when(pageResource.adaptTo(ComponentsConfiguration.class)).thenReturn(new ComponentsConfiguration(configuration));
+
+        Query data = new Query();
+        data.responseData.put("products__b0_0", new Products());
+        data.responseData.put("storeConfig__b1_0", new StoreConfig());
+        GraphqlResponse<Query, Error> batchResponse = new GraphqlResponse<>();
+        batchResponse.setData(data);
+        Mockito.doReturn(batchResponse).when(graphqlClient).execute(any(), any(), any(), any());
+
+        MagentoGraphqlClient productClient = new MagentoGraphqlClientImpl(pageResource, page, context.request());
+        MagentoGraphqlClient storeConfigClient = new MagentoGraphqlClientImpl(pageResource, page, context.request());
+        productClient.registerQuery(() -> "{products{total_count}}");
+        storeConfigClient.registerQuery(() -> "{storeConfig{store_code}}");
+
+        GraphqlResponse<Query, Error> productResponse = productClient.execute("{products{total_count}}");
+        GraphqlResponse<Query, Error> storeConfigResponse = storeConfigClient.execute("{storeConfig{store_code}}");
+
+        ArgumentCaptor<GraphqlRequest> captor = ArgumentCaptor.forClass(GraphqlRequest.class);
+        verify(graphqlClient, times(1)).execute(captor.capture(), any(), any(), any());
+        assertEquals("{products__b0_0:products{total_count} storeConfig__b1_0:storeConfig{store_code} }", captor.getValue().getQuery());
+        assertNotNull(productResponse.getData().getProducts());
+        assertNull(productResponse.getData().getStoreConfig());
+        assertNotNull(storeConfigResponse.getData().getStoreConfig());
+        assertNull(storeConfigResponse.getData().getProducts());
+    }
+
+    @Test
+    public void testQueryBatchingSeparatesCacheNames() {
+        ValueMap configuration = new ValueMapDecorator(ImmutableMap.of("cq:graphqlClient", "default", "magentoStore",
+            "my-store", "enableQueryBatching", true));
+        Page page = spy(context.pageManager().getPage(PAGE_A));
+        Resource pageResource = spy(page.adaptTo(Resource.class));
+        when(page.adaptTo(Resource.class)).thenReturn(pageResource);
+        when(pageResource.adaptTo(GraphqlClient.class)).thenReturn(graphqlClient);
+        when(pageResource.adaptTo(ComponentsConfiguration.class)).thenReturn(new ComponentsConfiguration(configuration));
+        Resource resource = context.resourceResolver().getResource(PRODUCT_COMPONENT_PATH);
+
+        Mockito.doReturn(new GraphqlResponse<>()).when(graphqlClient).execute(any(), any(), any(), any());
+
+        MagentoGraphqlClient productClient = new MagentoGraphqlClientImpl(resource, page, context.request());
+        MagentoGraphqlClient storeConfigClient = new MagentoGraphqlClientImpl(pageResource, page, context.request());
+        productClient.registerQuery(() -> "{products{total_count}}");
+        storeConfigClient.registerQuery(() -> "{storeConfig{store_code}}");
+
+        productClient.execute("{products{total_count}}");
+        storeConfigClient.execute("{storeConfig{store_code}}");
+
+        // clients with different cache names do not share a batch
+        ArgumentCaptor<RequestOptions> captor = ArgumentCaptor.forClass(RequestOptions.class);
+        verify(graphqlClient, times(2)).execute(any(), any(), any(), captor.capture());
+        assertNotEquals(captor.getAllValues().get(0).getCachingStrategy().getCacheName(),
+            captor.getAllValues().get(1).getCachingStrategy().getCacheName());
+    }
+
+    @Test
+    public void testCallRecorder() {
+        ValueMap configuration = new ValueMapDecorator(ImmutableMap.of("cq:graphqlClient", "default", "magentoStore",
+            "my-store", "enableQueryBatching", true));
+        Page page = spy(context.pageManager().getPage(PAGE_A));
+        Resource pageResource = spy(page.adaptTo(Resource.class));
+        when(page.adaptTo(Resource.class)).thenReturn(pageResource);
+        when(pageResource.adaptTo(GraphqlClient.class)).thenReturn(graphqlClient);
+        when(pageResource.adaptTo(ComponentsConfiguration.class)).thenReturn(new ComponentsConfiguration(configuration));
+
+        Query data = new Query();
+        data.responseData.put("products__b0_0", new Products());
+        data.responseData.put("storeConfig__b1_0", new StoreConfig());
+        GraphqlResponse<Query, Error> batchResponse = new GraphqlResponse<>();
+        batchResponse.setData(data);
+        Mockito.doReturn(batchResponse).when(graphqlClient).execute(any(), any(), any(), any());
+
+        // queries are only recorded for requests the recorder was started for
+        new MagentoGraphqlClientImpl(pageResource, page, context.request()).execute("{products{total_count}}");
+        GraphqlCallRecorder recorder = GraphqlCallRecorder.start(context.request());
+        assertNull(GraphqlCallRecorder.start(context.request()));
+
+        MagentoGraphqlClient client = new MagentoGraphqlClientImpl(pageResource, page, context.request());
+        client.registerQuery(() -> "{products{total_count}}");
+        client.registerQuery(() -> "{storeConfig{store_code}}");
+        client.execute("{products{total_count}}");
+        client.execute("{storeConfig{store_code}}");
+
+        assertEquals(2, recorder.getQueries());
+        assertEquals(1, recorder.getClientQueries());
+        assertEquals(1, recorder.getLocalQueries());
+        assertEquals(48, recorder.getQueryBytes());
+    }
+
+    @Test
+    public void testPersistedQueries() {
+        ValueMap configuration = new ValueMapDecorator(ImmutableMap.of("cq:graphqlClient", "default", "magentoStore",
+            "my-store", "enablePersistedQueries", true));
+        Page page = spy(context.pageManager().getPage(PAGE_A));
+        Resource pageResource = spy(page.adaptTo(Resource.class));
+        when(page.adaptTo(Resource.class)).thenReturn(pageResource);
+        when(pageResource.adaptTo(GraphqlClient.class)).thenReturn(graphqlClient);
+        when(pageResource.adaptTo(ComponentsConfiguration.class)).thenReturn(new ComponentsConfiguration(configuration));
+        Mockito.doReturn(new GraphqlResponse<Query, Error>()).when(graphqlClient).execute(any(), any(), any(), any());
+
+        MagentoGraphqlClient client = new MagentoGraphqlClientImpl(pageResource, page, null);
+        client.execute("{persistedQuery{test}}", HttpMethod.POST);
+        client.execute("{persistedQuery{test}}", HttpMethod.POST);
+        // persisted queries cannot be sent with GET
+        client.execute("{persistedQuery{test}}", HttpMethod.GET);
+
+        ArgumentCaptor<GraphqlRequest> captor = ArgumentCaptor.forClass(GraphqlRequest.class);
+        verify(graphqlClient, times(3)).execute(captor.capture(), any(), any(), any());
+        List<GraphqlRequest> requests = captor.getAllValues();
+        assertTrue(requests.get(0) instanceof PersistedQueries.PersistedQueryRequest);
+        assertTrue(((PersistedQueries.PersistedQueryRequest) requests.get(0)).isQuerySent());
+        assertTrue(requests.get(1) instanceof PersistedQueries.PersistedQueryRequest);
+        assertFalse(((PersistedQueries.PersistedQueryRequest) requests.get(1)).isQuerySent());
+        assertFalse(requests.get(2) instanceof PersistedQueries.PersistedQueryRequest);
+        assertEquals("{persistedQuery{test}}", requests.get(2).getQuery());
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        Page page = spy(context.pageManager().getPage(PAGE_A));
+        Resource pageResource = spy(page.adaptTo(Resource.class));
+        when(page.adaptTo(Resource.class)).thenReturn(pageResource);
+        when(pageResource.adaptTo(GraphqlClient.class)).thenReturn(graphqlClient);
+        when(pageResource.adaptTo(ComponentsConfiguration.class)).thenReturn(MOCK_CONFIGURATION_OBJECT);
+
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        Mockito.doReturn(response).when(graphqlClient).execute(any(), any(), any(), any());
+
+        // without executor the query is executed synchronously
+        MagentoGraphqlClient client = new MagentoGraphqlClientImpl(pageResource, page, null);
+        CompletableFuture<GraphqlResponse<Query, Error>> future = client.executeAsync("{dummy}");
+        assertTrue(future.isDone());
+        assertSame(response, future.get());
+
+        GraphqlClientExecutor executor = context.registerInjectActivateService(new GraphqlClientExecutor());
+        Whitebox.setInternalState(client, "executor", executor);
+        assertSame(response, client.executeAsync("{dummy}").get(5, TimeUnit.SECONDS));
+        assertSame(response, client.executeAsync("{dummy}", HttpMethod.GET).get(5, TimeUnit.SECONDS));
+        verify(graphqlClient, times(3)).execute(any(), any(), any(), any());
+    }
+
     /**
      * Matcher class used to check that the RequestOptions added by the wrapper are correct.
      */
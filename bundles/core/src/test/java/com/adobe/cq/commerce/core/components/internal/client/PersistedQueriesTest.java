@@ -0,0 +1,267 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.osgi.services.HttpClientBuilderFactory;
+import org.apache.http.util.EntityUtils;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.adobe.cq.commerce.core.MockHttpClientBuilderFactory;
+import com.adobe.cq.commerce.core.components.internal.client.PersistedQueries.PersistedQueryRequest;
+import com.adobe.cq.commerce.graphql.client.CachingStrategy;
+import com.adobe.cq.commerce.graphql.client.CachingStrategy.DataFetchingPolicy;
+import com.adobe.cq.commerce.graphql.client.GraphqlClient;
+import com.adobe.cq.commerce.graphql.client.GraphqlRequest;
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.graphql.client.RequestOptions;
+import com.adobe.cq.commerce.graphql.client.impl.GraphqlClientImpl;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PersistedQueriesTest {
+
+    @Rule
+    public final OsgiContext context = new OsgiContext();
+
+    private static final String CLIENT_KEY = "https://hostname/graphql;Store=default";
+    private static final String QUERY = "{products(search:\"shirt\"){items{sku}}}";
+
+    private PersistedQueries persistedQueries;
+    private List<GraphqlRequest> requests;
+
+    @Before
+    public void setUp() {
+        persistedQueries = new PersistedQueries();
+        requests = new ArrayList<>();
+    }
+
+    @Test
+    public void testQueryRegisteredOnceThenSentAsHash() {
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+
+        assertSame(response, persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response)));
+        assertSame(response, persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response)));
+
+        assertEquals(2, requests.size());
+        // the first request registers the query with its hash
+        assertTrue(isRegistering(requests.get(0)));
+        assertEquals(DigestUtils.sha256Hex(QUERY), getHash(requests.get(0)));
+        // the second request only sends the hash
+        assertTrue(isHashOnly(requests.get(1)));
+        assertEquals(DigestUtils.sha256Hex(QUERY), getHash(requests.get(1)));
+
+        // another endpoint has to register the query again
+        persistedQueries.execute("https://other-hostname/graphql", QUERY, request -> record(request, response));
+        assertTrue(isRegistering(requests.get(2)));
+    }
+
+    @Test
+    public void testQueryNotRegisteredOnError() {
+        GraphqlResponse<Query, Error> errorResponse = newErrorResponse("Internal error");
+
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, errorResponse));
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, errorResponse));
+
+        assertTrue(isRegistering(requests.get(0)));
+        assertTrue(isRegistering(requests.get(1)));
+    }
+
+    @Test
+    public void testPersistedQueryNotFound() {
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response));
+
+        // the server lost the hash, so the query is sent again
+        GraphqlResponse<Query, Error> result = persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request,
+            isHashOnly(request) ? newErrorResponse(PersistedQueries.PERSISTED_QUERY_NOT_FOUND) : response));
+
+        assertSame(response, result);
+        assertEquals(3, requests.size());
+        assertTrue(isHashOnly(requests.get(1)));
+        assertTrue(isRegistering(requests.get(2)));
+        assertEquals(DigestUtils.sha256Hex(QUERY), getHash(requests.get(2)));
+    }
+
+    @Test
+    public void testPersistedQueryNotSupported() {
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        GraphqlResponse<Query, Error> result = persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request,
+            request instanceof PersistedQueryRequest ? newErrorResponse(PersistedQueries.PERSISTED_QUERY_NOT_SUPPORTED) : response));
+        assertSame(response, result);
+
+        // persisted queries are disabled for the endpoint
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response));
+
+        assertEquals(3, requests.size());
+        assertTrue(requests.get(0) instanceof PersistedQueryRequest);
+        assertFalse(requests.get(1) instanceof PersistedQueryRequest);
+        assertFalse(requests.get(2) instanceof PersistedQueryRequest);
+    }
+
+    @Test
+    public void testHashOnlyRequestFails() {
+        // the server ignores the extension, so the query is registered but requests without a query fail
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response));
+        GraphqlResponse<Query, Error> result = persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request,
+            isHashOnly(request) ? newErrorResponse("Syntax Error: Unexpected <EOF>") : response));
+        assertSame(response, result);
+
+        // persisted queries are disabled for the endpoint
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response));
+
+        assertEquals(4, requests.size());
+        assertTrue(isHashOnly(requests.get(1)));
+        assertFalse(requests.get(2) instanceof PersistedQueryRequest);
+        assertFalse(requests.get(3) instanceof PersistedQueryRequest);
+    }
+
+    @Test
+    public void testHashOnlyRequestThrows() {
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response));
+        GraphqlResponse<Query, Error> result = persistedQueries.execute(CLIENT_KEY, QUERY, request -> {
+            if (isHashOnly(request)) {
+                throw new RuntimeException("GraphQL query failed with response code 400");
+            }
+            return record(request, response);
+        });
+
+        assertSame(response, result);
+        assertEquals(2, requests.size());
+        assertFalse(requests.get(1) instanceof PersistedQueryRequest);
+
+        // exceptions do not disable persisted queries for the endpoint
+        persistedQueries.execute(CLIENT_KEY, QUERY, request -> record(request, response));
+        assertTrue(isHashOnly(requests.get(2)));
+    }
+
+    @Test
+    public void testPersistedQueryRequest() {
+        PersistedQueryRequest request = new PersistedQueryRequest(QUERY, "hash", false);
+
+        // the query is returned for the caches of the GraphQL client but not serialized
+        assertEquals(QUERY, request.getQuery());
+        JsonObject json = new Gson().toJsonTree(request).getAsJsonObject();
+        assertFalse(json.has("query"));
+        assertFalse(json.has("persistedQuery"));
+        assertEquals("hash", json.getAsJsonObject("extensions").getAsJsonObject("persistedQuery").get("sha256Hash").getAsString());
+        assertEquals(1, json.getAsJsonObject("extensions").getAsJsonObject("persistedQuery").get("version").getAsInt());
+        assertEquals(QUERY, new Gson().toJsonTree(new PersistedQueryRequest(QUERY, "hash", true)).getAsJsonObject().get("query")
+            .getAsString());
+
+        // registering and hash-only requests share cached responses, requests of other queries do not
+        assertEquals(new PersistedQueryRequest(QUERY, "hash", true), request);
+        assertEquals(new PersistedQueryRequest(QUERY, "hash", true).hashCode(), request.hashCode());
+        assertNotEquals(new PersistedQueryRequest("{other}", "other-hash", false), request);
+        assertNotEquals(new GraphqlRequest(QUERY), request);
+    }
+
+    @Test
+    public void testWithGraphqlClientCaches() throws Exception {
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        List<JsonObject> bodies = new ArrayList<>();
+        when(httpClient.execute(any(HttpUriRequest.class))).then(invocation -> {
+            HttpEntityEnclosingRequest request = (HttpEntityEnclosingRequest) invocation.getArguments()[0];
+            bodies.add(new JsonParser().parse(EntityUtils.toString(request.getEntity())).getAsJsonObject());
+            StatusLine statusLine = mock(StatusLine.class);
+            when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+            CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+            when(response.getStatusLine()).thenReturn(statusLine);
+            when(response.getEntity()).thenReturn(new StringEntity("{\"data\":{}}", StandardCharsets.UTF_8));
+            return response;
+        });
+        context.registerService(HttpClientBuilderFactory.class, new MockHttpClientBuilderFactory(httpClient));
+        GraphqlClient graphqlClient = context.registerInjectActivateService(new GraphqlClientImpl(), "url", "https://hostname/graphql",
+            "httpMethod", "POST", "cacheConfigurations", new String[] { "cached:true:100:60" });
+
+        for (String cacheName : new String[] { "cached", "uncached" }) {
+            RequestOptions options = new RequestOptions().withCachingStrategy(new CachingStrategy().withCacheName(cacheName)
+                .withDataFetchingPolicy(DataFetchingPolicy.CACHE_FIRST));
+            for (int i = 0; i < 2; i++) {
+                GraphqlResponse<Query, Error> response = persistedQueries.execute(CLIENT_KEY, QUERY,
+                    request -> graphqlClient.execute(request, Query.class, Error.class, options));
+                assertNotNull(response.getData());
+            }
+        }
+
+        // the hash-only request is answered from the response cached for the registering request, without a cache it is sent
+        assertEquals(3, bodies.size());
+        assertEquals(QUERY, bodies.get(0).get("query").getAsString());
+        for (JsonObject body : bodies.subList(1, 3)) {
+            assertFalse(body.has("query"));
+            assertEquals(DigestUtils.sha256Hex(QUERY), body.getAsJsonObject("extensions").getAsJsonObject("persistedQuery").get(
+                "sha256Hash").getAsString());
+        }
+    }
+
+    private static boolean isRegistering(GraphqlRequest request) {
+        return request instanceof PersistedQueryRequest && ((PersistedQueryRequest) request).isQuerySent()
+            && QUERY.equals(request.getQuery());
+    }
+
+    private static boolean isHashOnly(GraphqlRequest request) {
+        return request instanceof PersistedQueryRequest && !((PersistedQueryRequest) request).isQuerySent();
+    }
+
+    private GraphqlResponse<Query, Error> record(GraphqlRequest request, GraphqlResponse<Query, Error> response) {
+        requests.add(request);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getHash(GraphqlRequest request) {
+        return (String) ((java.util.Map<String, Object>) ((PersistedQueryRequest) request).getExtensions().get("persistedQuery")).get(
+            "sha256Hash");
+    }
+
+    private static GraphqlResponse<Query, Error> newErrorResponse(String message) {
+        Error error = new Error();
+        error.setMessage(message);
+        GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+        response.setErrors(Collections.singletonList(error));
+        return response;
+    }
+}
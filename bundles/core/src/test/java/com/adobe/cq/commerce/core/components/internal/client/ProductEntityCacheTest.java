@@ -0,0 +1,188 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.adobe.cq.commerce.graphql.client.GraphqlResponse;
+import com.adobe.cq.commerce.magento.graphql.Products;
+import com.adobe.cq.commerce.magento.graphql.Query;
+import com.adobe.cq.commerce.magento.graphql.SimpleProduct;
+import com.adobe.cq.commerce.magento.graphql.gson.Error;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProductEntityCacheTest {
+
+    private static final String PRODUCT_QUERY = "{products(filter:{sku:{eq:\"MJ01\"}}){items{__typename,sku,name,url_key,"
+        + "price_range{minimum_price{final_price{value,currency}}},... on ConfigurableProduct{variants{product{sku}}}}}}";
+    private static final String BREADCRUMB_QUERY = "{products(filter:{sku:{eq:\"MJ01\"}}){items{__typename,name,url_key}}}";
+    private static final String URL_QUERY = "{products(filter:{sku:{eq:\"MJ01\"}}){items{__typename,url_key,url_path}}}";
+
+    private final ProductEntityCache productEntityCache = new ProductEntityCache();
+    private final List<String> executedQueries = new ArrayList<>();
+    private final SimpleProduct product = new SimpleProduct();
+
+    @Before
+    public void setUp() {
+        productEntityCache.activate(mockConfiguration(0));
+    }
+
+    private Supplier<GraphqlResponse<Query, Error>> call(String query) {
+        return () -> {
+            executedQueries.add(query);
+            GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+            response.setData(new Query().setProducts(new Products().setItems(Collections.singletonList(product))));
+            return response;
+        };
+    }
+
+    @Test
+    public void testServedFromRequestCache() {
+        SlingHttpServletRequest request = mockRequest();
+        ProductEntityCache.Scope scope = productEntityCache.forRequest(request, "endpoint;Store=default");
+
+        scope.execute(PRODUCT_QUERY, call(PRODUCT_QUERY));
+        GraphqlResponse<Query, Error> response = productEntityCache.forRequest(request, "endpoint;Store=default")
+            .execute(BREADCRUMB_QUERY, call(BREADCRUMB_QUERY));
+        assertSame(product, response.getData().getProducts().getItems().get(0));
+        assertEquals(Collections.singletonList(PRODUCT_QUERY), executedQueries);
+
+        // url_path was not fetched yet
+        scope.execute(URL_QUERY, call(URL_QUERY));
+        scope.execute(URL_QUERY, call(URL_QUERY));
+        scope.execute(PRODUCT_QUERY, call(PRODUCT_QUERY));
+        assertEquals(2, executedQueries.size());
+
+        // other clients and other requests do not share the products
+        productEntityCache.forRequest(request, "endpoint;Store=other").execute(BREADCRUMB_QUERY, call(BREADCRUMB_QUERY));
+        productEntityCache.forRequest(mockRequest(), "endpoint;Store=default").execute(BREADCRUMB_QUERY, call(BREADCRUMB_QUERY));
+        productEntityCache.forRequest(null, "endpoint;Store=default").execute(BREADCRUMB_QUERY, call(BREADCRUMB_QUERY));
+        assertEquals(5, executedQueries.size());
+    }
+
+    @Test
+    public void testServedFromSharedCache() {
+        productEntityCache.activate(mockConfiguration(100));
+
+        productEntityCache.forRequest(null, "endpoint").execute(PRODUCT_QUERY, call(PRODUCT_QUERY));
+        productEntityCache.forRequest(mockRequest(), "endpoint").execute(BREADCRUMB_QUERY, call(BREADCRUMB_QUERY));
+        assertEquals(1, executedQueries.size());
+
+        productEntityCache.activate(mockConfiguration(0));
+        productEntityCache.forRequest(null, "endpoint").execute(BREADCRUMB_QUERY, call(BREADCRUMB_QUERY));
+        assertEquals(2, executedQueries.size());
+    }
+
+    @Test
+    public void testOtherQueriesNotCached() {
+        SlingHttpServletRequest request = mockRequest();
+        String listQuery = "{products(filter:{sku:{in:[\"MJ01\"]}}){items{__typename,sku}}}";
+        String pagedQuery = "{products(filter:{sku:{eq:\"MJ01\"}}){total_count,items{__typename,sku}}}";
+
+        for (String query : new String[] { listQuery, pagedQuery, listQuery, pagedQuery }) {
+            productEntityCache.forRequest(request, "endpoint").execute(query, call(query));
+        }
+        assertEquals(4, executedQueries.size());
+    }
+
+    @Test
+    public void testErrorsNotCached() {
+        SlingHttpServletRequest request = mockRequest();
+        Supplier<GraphqlResponse<Query, Error>> failingCall = () -> {
+            executedQueries.add(PRODUCT_QUERY);
+            GraphqlResponse<Query, Error> response = new GraphqlResponse<>();
+            response.setErrors(Collections.singletonList(new Error()));
+            return response;
+        };
+
+        productEntityCache.forRequest(request, "endpoint").execute(PRODUCT_QUERY, failingCall);
+        productEntityCache.forRequest(request, "endpoint").execute(PRODUCT_QUERY, failingCall);
+        assertEquals(2, executedQueries.size());
+    }
+
+    @Test
+    public void testParseProductQuery() {
+        assertNotNull(ProductEntityCache.ProductQuery.parse(PRODUCT_QUERY));
+        assertNotNull(ProductEntityCache.ProductQuery.parse("{products(filter:{sku:{eq:\"a\\\"}}{\"}}){items{sku}}}"));
+        assertNull(ProductEntityCache.ProductQuery.parse(null));
+        assertNull(ProductEntityCache.ProductQuery.parse("{products(filter:{sku:{eq:\"MJ01\"}}){items{sku}},storeConfig{code}}"));
+        assertNull(ProductEntityCache.ProductQuery.parse("{products(filter:{sku:{eq:\"MJ01\"},name:{match:\"a\"}}){items{sku}}}"));
+        assertNull(ProductEntityCache.ProductQuery.parse("{products(filter:{sku:{eq:\"MJ01\"}}){items{sku}}"));
+        assertNull(ProductEntityCache.ProductQuery.parse("{products(filter:{sku:{eq:\"MJ01\"}}){items}}"));
+    }
+
+    @Test
+    public void testSelectionSetCovers() {
+        ProductEntityCache.SelectionSet full = ProductEntityCache.SelectionSet.parse(PRODUCT_QUERY);
+        assertTrue(full.covers(ProductEntityCache.SelectionSet.parse(
+            "{products(filter:{sku:{eq:\"MJ01\"}}){items{sku,... on ConfigurableProduct{variants{product{sku}}}}}}")));
+        assertTrue(full.covers(ProductEntityCache.SelectionSet.parse("{ products(filter:{sku:{eq:\"MJ01\"}}) { items { name } } }")));
+        assertFalse(full.covers(ProductEntityCache.SelectionSet.parse(
+            "{products(filter:{sku:{eq:\"MJ01\"}}){items{price_range{maximum_price{final_price{value}}}}}}")));
+        assertFalse(full.covers(ProductEntityCache.SelectionSet.parse(
+            "{products(filter:{sku:{eq:\"MJ01\"}}){items{... on ConfigurableProduct{variants{product{name}}}}}}")));
+        assertFalse(full.covers(ProductEntityCache.SelectionSet.parse("{products(filter:{sku:{eq:\"MJ02\"}}){items{sku}}}")));
+    }
+
+    private static SlingHttpServletRequest mockRequest() {
+        Map<String, Object> attributes = new HashMap<>();
+        SlingHttpServletRequest request = mock(SlingHttpServletRequest.class);
+        when(request.getAttribute(anyString())).then(invocation -> attributes.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1])).when(request)
+            .setAttribute(anyString(), any());
+        return request;
+    }
+
+    private static ProductEntityCacheConfiguration mockConfiguration(int cacheSize) {
+        return new ProductEntityCacheConfiguration() {
+            @Override
+            public int cacheSize() {
+                return cacheSize;
+            }
+
+            @Override
+            public int cacheTtl() {
+                return 60;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return ProductEntityCacheConfiguration.class;
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.adobe.cq.commerce.magento.graphql.FilterEqualTypeInput;
+import com.adobe.cq.commerce.magento.graphql.Operations;
+import com.adobe.cq.commerce.magento.graphql.ProductAttributeFilterInput;
+import com.adobe.cq.commerce.magento.graphql.ProductInterfaceQuery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class QueryTemplatesTest {
+
+    private static final List<String> ARGUMENTS = Arrays.asList("MJ01", "with \"quotes\" and \\", "multi\nline\r", "control\u0001",
+        "unicode é中", "");
+
+    private final AtomicInteger generated = new AtomicInteger();
+
+    private String productQuery(String sku) {
+        generated.incrementAndGet();
+        ProductAttributeFilterInput filter = new ProductAttributeFilterInput().setSku(new FilterEqualTypeInput().setEq(sku));
+        return Operations.query(q -> q.products(s -> s.filter(filter), p -> p.items(i -> i.sku().name()))).toString();
+    }
+
+    private String productsQuery(List<String> skus) {
+        generated.incrementAndGet();
+        ProductAttributeFilterInput filter = new ProductAttributeFilterInput().setSku(new FilterEqualTypeInput().setIn(skus));
+        return Operations.query(q -> q.products(s -> s.filter(filter).pageSize(20), p -> p.items(i -> i.sku()))).toString();
+    }
+
+    @Test
+    public void testGenerateMatchesQueryBuilder() {
+        Object key = Arrays.asList(QueryTemplatesTest.class, "single");
+        for (String argument : ARGUMENTS) {
+            assertEquals(productQuery(argument), QueryTemplates.generate(key, argument, this::productQuery));
+        }
+
+        // the query builder only ran once for the template and once for each expected query
+        assertEquals(ARGUMENTS.size() + 1, generated.get());
+    }
+
+    @Test
+    public void testGenerateListMatchesQueryBuilder() {
+        Object key = Arrays.asList(QueryTemplatesTest.class, "list");
+        for (List<String> arguments : Arrays.asList(ARGUMENTS, Collections.singletonList("MJ01"), Collections.<String>emptyList())) {
+            assertEquals(productsQuery(arguments), QueryTemplates.generate(key, arguments, this::productsQuery));
+        }
+        assertEquals(4, generated.get());
+    }
+
+    @Test
+    public void testGenerateWithoutTemplate() {
+        assertEquals(productQuery("MJ01"), QueryTemplates.generate(null, "MJ01", this::productQuery));
+        assertEquals(productQuery(null), QueryTemplates.generate(Arrays.asList(QueryTemplatesTest.class, "null"), (String) null,
+            this::productQuery));
+
+        // queries without the argument cannot be compiled and are always generated
+        Function<String, String> constant = argument -> {
+            generated.incrementAndGet();
+            return "{constant}";
+        };
+        Object key = Arrays.asList(QueryTemplatesTest.class, "constant");
+        assertEquals("{constant}", QueryTemplates.generate(key, "a", constant));
+        assertEquals("{constant}", QueryTemplates.generate(key, "b", constant));
+        assertEquals(7, generated.get());
+    }
+
+    @Test
+    public void testRetrieverKey() {
+        Consumer<ProductInterfaceQuery> stateless = p -> p.sku();
+        Consumer<ProductInterfaceQuery> otherStateless = p -> p.name();
+        String field = "name";
+        Consumer<ProductInterfaceQuery> capturing = p -> p.addCustomSimpleField(field);
+
+        assertEquals(Arrays.asList(StatelessRetriever.class.getName(), null), QueryTemplates.retrieverKey(StatelessRetriever.class,
+            BaseRetriever.class, (Object) null));
+        assertEquals(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, stateless),
+            QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, stateless));
+        assertNotNull(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, otherStateless));
+        assertNotEquals(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, stateless),
+            QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, otherStateless));
+
+        assertNull(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, capturing));
+        assertNull(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, stateless.andThen(otherStateless)));
+        assertNull(QueryTemplates.retrieverKey(StatefulRetriever.class, BaseRetriever.class, stateless));
+        assertNull(QueryTemplates.retrieverKey(String.class, BaseRetriever.class, stateless));
+
+        // hooks inheriting state are not stateless
+        assertNotNull(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, new StatelessHook()));
+        assertNull(QueryTemplates.retrieverKey(StatelessRetriever.class, BaseRetriever.class, new InheritingHook("name")));
+    }
+
+    private static class StatefulHook implements Consumer<ProductInterfaceQuery> {
+        private final String field;
+
+        StatefulHook(String field) {
+            this.field = field;
+        }
+
+        @Override
+        public void accept(ProductInterfaceQuery query) {
+            query.addCustomSimpleField(field);
+        }
+    }
+
+    private static class InheritingHook extends StatefulHook {
+        InheritingHook(String field) {
+            super(field);
+        }
+    }
+
+    private static class StatelessHook implements Consumer<ProductInterfaceQuery> {
+        @Override
+        public void accept(ProductInterfaceQuery query) {
+            query.sku();
+        }
+    }
+
+    private static class BaseRetriever {
+        protected String identifier;
+    }
+
+    private static class StatelessRetriever extends BaseRetriever {
+        private static final String TYPE = "stateless";
+    }
+
+    private static class StatefulRetriever extends StatelessRetriever {
+        private String type;
+    }
+}
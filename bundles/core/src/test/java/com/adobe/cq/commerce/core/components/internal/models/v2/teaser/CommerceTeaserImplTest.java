@@ -89,9 +89,9 @@ public class CommerceTeaserImplTest {
         context.registerInjectActivateService(graphqlClient);
 
         Utils.setupHttpResponse("graphql/magento-graphql-category-list-result.json", httpClient, HttpStatus.SC_OK,
-            "{categoryList(filters:{category_uid:{eq:");
+            "{categoryList(filters:{category_uid:{in:[\"uid-5\"]}}");
         Utils.setupHttpResponse("graphql/magento-graphql-product-result.json", httpClient, HttpStatus.SC_OK,
-            "{products(filter:{sku:{eq:\"MJ01\"}}");
+            "{products(filter:{sku:{in:[\"MJ01\"]}}");
 
         context.registerAdapter(Resource.class, GraphqlClient.class, (Function<Resource, GraphqlClient>) input -> input.getValueMap().get(
             "cq:graphqlClient", String.class) != null ? graphqlClient : null);
@@ -0,0 +1,98 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.services;
+
+import java.util.Calendar;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.models.factory.ModelFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import com.adobe.cq.commerce.core.components.internal.models.v1.product.ProductImpl;
+import com.adobe.cq.commerce.core.testing.TestContext;
+import com.day.cq.wcm.api.NameConstants;
+import com.google.common.collect.ImmutableMap;
+import io.wcm.testing.mock.aem.junit.AemContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CommerceComponentModelFinderTest {
+
+    private static final String PRODUCT_RT = "venia/components/commerce/product";
+
+    @Rule
+    public final AemContext context = TestContext.newAemContext();
+
+    private CommerceComponentModelFinder finder;
+    private Resource contentResource;
+
+    @Before
+    public void setUp() {
+        ModelFactory modelFactory = mock(ModelFactory.class);
+        when(modelFactory.getModelFromWrappedRequest(any(), any(), any())).then(invocation -> invocation.getArguments()[1]);
+        finder = new CommerceComponentModelFinder();
+        Whitebox.setInternalState(finder, "modelFactory", modelFactory);
+
+        context.create().resource("/apps/" + PRODUCT_RT, "sling:resourceSuperType", ProductImpl.RESOURCE_TYPE);
+        contentResource = context.create().resource("/content/page/jcr:content");
+        context.create().resource("/content/page/jcr:content/root/container/text", "sling:resourceType", "core/wcm/components/text");
+        context.create().resource("/content/page/jcr:content/root/container/container/title", "sling:resourceType",
+            "core/wcm/components/title");
+    }
+
+    @Test
+    public void testFindComponentWithSuperType() {
+        context.create().resource("/content/page/jcr:content/root/container/container/product", "sling:resourceType", PRODUCT_RT);
+        context.create().resource("/content/page/jcr:content/root/product", "sling:resourceType", ProductImpl.RESOURCE_TYPE);
+
+        // the first component in depth-first order is returned
+        Resource product = finder.findComponentModel(context.request(), contentResource, ProductImpl.RESOURCE_TYPE, Resource.class);
+        assertEquals("/content/page/jcr:content/root/container/container/product", product.getPath());
+        assertNull(finder.findComponentModel(context.request(), contentResource, "core/wcm/components/image", Resource.class));
+    }
+
+    @Test
+    public void testComponentLocationCachedUntilModified() {
+        ModifiableValueMap properties = contentResource.adaptTo(ModifiableValueMap.class);
+        Calendar lastModified = Calendar.getInstance();
+        properties.put(NameConstants.PN_PAGE_LAST_MOD, lastModified);
+
+        assertNull(finder.findComponentModel(context.request(), contentResource, ProductImpl.RESOURCE_TYPE, Resource.class));
+
+        // the page is not traversed again as long as it was not modified
+        context.create().resource("/content/page/jcr:content/root/container/product", ImmutableMap.of("sling:resourceType",
+            ProductImpl.RESOURCE_TYPE));
+        assertNull(finder.findComponentModel(context.request(), contentResource, ProductImpl.RESOURCE_TYPE, Resource.class));
+
+        Calendar modified = (Calendar) lastModified.clone();
+        modified.add(Calendar.MINUTE, 1);
+        properties.put(NameConstants.PN_PAGE_LAST_MOD, modified);
+        Resource product = finder.findComponentModel(context.request(), contentResource, ProductImpl.RESOURCE_TYPE, Resource.class);
+        assertEquals("/content/page/jcr:content/root/container/product", product.getPath());
+
+        // the cached location is used
+        product = finder.findComponentModel(context.request(), contentResource, ProductImpl.RESOURCE_TYPE, Resource.class);
+        assertEquals("/content/page/jcr:content/root/container/product", product.getPath());
+    }
+}
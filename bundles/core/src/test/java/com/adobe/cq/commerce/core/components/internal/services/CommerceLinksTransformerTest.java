@@ -15,14 +15,18 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.stream.Collectors;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.osgi.services.HttpClientBuilderFactory;
 import org.apache.jackrabbit.commons.xml.ParsingContentHandler;
@@ -51,8 +55,11 @@ import static com.adobe.cq.commerce.core.testing.TestContext.newAemContext;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CommerceLinksTransformerTest {
@@ -64,6 +71,27 @@ public class CommerceLinksTransformerTest {
             return false;
         }
 
+        @Override
+        public boolean isPrefetchEnabled() {
+            return true;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return null;
+        }
+    };
+    public static final Configuration CONFIG_PREFETCH_DISABLED = new Configuration() {
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isPrefetchEnabled() {
+            return false;
+        }
+
         @Override
         public Class<? extends Annotation> annotationType() {
             return null;
@@ -73,11 +101,12 @@ public class CommerceLinksTransformerTest {
     public final AemContext context = newAemContext("/context/jcr-content.json");
     private CommerceLinksTransformerFactory transformerFactory;
     private ProcessingContext mockProcessingContext;
+    private CloseableHttpClient httpClient;
 
     @Before
     public void before() throws Exception {
         // setup GraphQL client for UrlProvider
-        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        httpClient = mock(CloseableHttpClient.class);
         context.registerService(HttpClientBuilderFactory.class, new MockHttpClientBuilderFactory(httpClient));
         GraphqlClientImpl graphqlClient = spy(new GraphqlClientImpl());
         context.registerInjectActivateService(graphqlClient, "httpMethod", "POST");
@@ -88,6 +117,10 @@ public class CommerceLinksTransformerTest {
             "{categoryList(filters:{category_uid:{eq:\"uid-5\"}}");
         Utils.setupHttpResponse("graphql/magento-graphql-category-breadcrumb-result.json", httpClient, HttpStatus.SC_OK,
             "{categoryList(filters:{category_uid:{eq:\"MTM=\"}}");
+        Utils.setupHttpResponse("graphql/magento-graphql-product-result.json", httpClient, HttpStatus.SC_OK,
+            "{products(filter:{sku:{in:[\"MJ01\"]}}");
+        Utils.setupHttpResponse("graphql/magento-graphql-category-list-commerce-links-result.json", httpClient, HttpStatus.SC_OK,
+            "{categoryList(filters:{category_uid:{in:[\"uid-5\",\"MTM=\"]}}");
 
         // setup UrlRewriterTransformer
         MockSlingHttpServletRequest mockRequest = context.request();
@@ -100,6 +133,85 @@ public class CommerceLinksTransformerTest {
 
     @Test
     public void testTransformerEnabled() throws Exception {
+        checkTransformedAnchors(transform());
+
+        // all products and all categories are fetched with a single query each
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    public void testTransformerPrefetchDisabled() throws Exception {
+        transformerFactory.activate(CONFIG_PREFETCH_DISABLED);
+
+        checkTransformedAnchors(transform());
+
+        // every commerce link is resolved with a separate query
+        verify(httpClient, times(9)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    public void testUnknownItemsLinkedByIdentifier() throws Exception {
+        String html = "<html><body>"
+            + "<a id=\"link1\" data-product-sku=\"MJ01\" data-replace-text=\"true\" href=\"#CommerceLinks\">Known</a>"
+            + "<a id=\"link2\" data-product-sku=\"UNKNOWN\" href=\"#CommerceLinks\">Unknown</a>"
+            + "<a id=\"link3\" data-product-sku=\"UNKNOWN\" data-replace-text=\"true\" href=\"#CommerceLinks\">Unknown</a>"
+            + "<a id=\"link4\" data-category-uid=\"uid-5\" data-replace-text=\"true\" href=\"#CommerceLinks\">Known</a>"
+            + "<a id=\"link5\" data-category-uid=\"UNKNOWN\" href=\"#CommerceLinks\">Unknown</a>"
+            + "</body></html>";
+
+        Utils.setupHttpResponse("graphql/magento-graphql-product-result.json", httpClient, HttpStatus.SC_OK,
+            "{products(filter:{sku:{in:[\"MJ01\",\"UNKNOWN\"]}}");
+        Utils.setupHttpResponse("graphql/magento-graphql-category-list-commerce-links-result.json", httpClient, HttpStatus.SC_OK,
+            "{categoryList(filters:{category_uid:{in:[\"uid-5\",\"UNKNOWN\"]}}");
+
+        // the prefetched links must be the same as the links resolved one by one
+        Elements prefetched = Jsoup.parse(transform(html)).select(ELEMENT_ANCHOR);
+        transformerFactory.activate(CONFIG_PREFETCH_DISABLED);
+        Elements expected = Jsoup.parse(transform(html)).select(ELEMENT_ANCHOR);
+
+        assertEquals(5, prefetched.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).outerHtml(), prefetched.get(i).outerHtml());
+        }
+        assertEquals("/content/product-page.html/beaumont-summit-kit.html", prefetched.get(0).attr(ATTR_HREF));
+        assertNotEquals(MARKER_COMMERCE_LINKS, prefetched.get(1).attr(ATTR_HREF));
+        assertEquals(MARKER_COMMERCE_LINKS, prefetched.get(2).attr(ATTR_HREF));
+        assertEquals("Unknown", prefetched.get(2).text());
+        assertNotEquals(MARKER_COMMERCE_LINKS, prefetched.get(4).attr(ATTR_HREF));
+    }
+
+    @Test
+    public void testTransformerDisabled() throws Exception {
+        transformerFactory.activate(CONFIG_DISABLED);
+
+        Transformer transformer = transformerFactory.createTransformer();
+        transformer.init(mockProcessingContext, null);
+
+        // read and transform HTML
+        StringWriter writer = new StringWriter();
+        transformer.setContentHandler(new ToXmlContentHandler(writer));
+        ParsingContentHandler parsingContentHandler = new ParsingContentHandler(transformer);
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        parsingContentHandler.parse(classLoader.getResourceAsStream(TEST_HTML));
+
+        // verify transformed HTML
+        String transformedHtml = writer.toString();
+
+        Path filePath = Paths.get(classLoader.getResource(TEST_HTML).getPath());
+        String originalHtml = Files.lines(filePath).collect(Collectors.joining(System.lineSeparator()));
+
+        assertTrue(transformedHtml.endsWith(originalHtml));
+    }
+
+    private String transform() throws Exception {
+        return transform(this.getClass().getClassLoader().getResourceAsStream(TEST_HTML));
+    }
+
+    private String transform(String html) throws Exception {
+        return transform(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String transform(InputStream html) throws Exception {
         Transformer transformer = transformerFactory.createTransformer();
         transformer.init(mockProcessingContext, null);
 
@@ -107,10 +219,12 @@ public class CommerceLinksTransformerTest {
         StringWriter writer = new StringWriter();
         transformer.setContentHandler(new ToXmlContentHandler(writer));
         ParsingContentHandler parsingContentHandler = new ParsingContentHandler(transformer);
-        parsingContentHandler.parse(this.getClass().getClassLoader().getResourceAsStream(TEST_HTML));
+        parsingContentHandler.parse(html);
+        return writer.toString();
+    }
 
+    private void checkTransformedAnchors(String html) {
         // verify transformed HTML
-        String html = writer.toString();
         Document document = Jsoup.parse(html);
         Elements anchors = document.select(ELEMENT_ANCHOR);
 
@@ -138,29 +252,6 @@ public class CommerceLinksTransformerTest {
         checkAnchorText(anchors.get(17), "Equipment");
     }
 
-    @Test
-    public void testTransformerDisabled() throws Exception {
-        transformerFactory.activate(CONFIG_DISABLED);
-
-        Transformer transformer = transformerFactory.createTransformer();
-        transformer.init(mockProcessingContext, null);
-
-        // read and transform HTML
-        StringWriter writer = new StringWriter();
-        transformer.setContentHandler(new ToXmlContentHandler(writer));
-        ParsingContentHandler parsingContentHandler = new ParsingContentHandler(transformer);
-        ClassLoader classLoader = this.getClass().getClassLoader();
-        parsingContentHandler.parse(classLoader.getResourceAsStream(TEST_HTML));
-
-        // verify transformed HTML
-        String transformedHtml = writer.toString();
-
-        Path filePath = Paths.get(classLoader.getResource(TEST_HTML).getPath());
-        String originalHtml = Files.lines(filePath).collect(Collectors.joining(System.lineSeparator()));
-
-        assertTrue(transformedHtml.endsWith(originalHtml));
-    }
-
     private void checkAnchor(Element anchor, String commerceIdentifier, String href) {
         // id (arbitrary attributes) preserved
         assertTrue(isNotBlank(anchor.attr("id")));
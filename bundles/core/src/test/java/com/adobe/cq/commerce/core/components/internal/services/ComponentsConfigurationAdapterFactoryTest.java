@@ -15,10 +15,16 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
 
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChange;
 import org.apache.sling.serviceusermapping.ServiceUserMapped;
 import org.apache.sling.testing.mock.caconfig.ContextPlugins;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
@@ -27,6 +33,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.osgi.service.cm.Configuration;
 import org.osgi.service.cm.ConfigurationAdmin;
 
@@ -64,6 +71,8 @@ public class ComponentsConfigurationAdapterFactoryTest {
             serviceConfiguration.update(props);
         }).build();
 
+    private ComponentsConfigurationAdapterFactory factory;
+
     @Before
     public void setup() {
         context.load().json("/context/jcr-conf.json", "/conf/testing");
@@ -72,7 +81,7 @@ public class ComponentsConfigurationAdapterFactoryTest {
         context.registerService(ServiceUserMapped.class, serviceUserMapped, ImmutableMap.of(ServiceUserMapped.SUBSERVICENAME,
             "cif-components-configuration"));
 
-        ComponentsConfigurationAdapterFactory factory = new ComponentsConfigurationAdapterFactory();
+        factory = new ComponentsConfigurationAdapterFactory();
         context.registerInjectActivateService(factory);
     }
 
@@ -116,6 +125,89 @@ public class ComponentsConfigurationAdapterFactoryTest {
         }
     }
 
+    @Test
+    public void testAdaptFromResourceWithSameContextPath() throws PersistenceException {
+        Resource resource = context.resourceResolver().getResource("/content/pageH/jcr:content");
+        ComponentsConfiguration configuration = resource.adaptTo(ComponentsConfiguration.class);
+        Assert.assertEquals("my-store", configuration.get("magentoStore", String.class));
+
+        // change the configuration without notifying the factory
+        Resource configResource = context.resourceResolver().getResource("/conf/testing/settings/cloudconfigs/commerce");
+        configResource.adaptTo(ModifiableValueMap.class).put("magentoStore", "my-other-store");
+        context.resourceResolver().commit();
+
+        // resources with the same context path share the cached configuration
+        resource = context.create().resource("/content/pageH/jcr:content/child");
+        configuration = resource.adaptTo(ComponentsConfiguration.class);
+        Assert.assertEquals("my-store", configuration.get("magentoStore", String.class));
+
+        // changes in /conf invalidate the cache
+        factory.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, configResource.getPath(),
+            false)));
+        resource = context.resourceResolver().getResource("/content/pageH/jcr:content/child");
+        configuration = resource.adaptTo(ComponentsConfiguration.class);
+        Assert.assertEquals("my-other-store", configuration.get("magentoStore", String.class));
+    }
+
+    @Test
+    public void testAdaptFromCachedResourcePath() throws LoginException {
+        Resource resource = context.resourceResolver().getResource("/content/pageH/jcr:content");
+        ComponentsConfiguration configuration = resource.adaptTo(ComponentsConfiguration.class);
+
+        // cached configurations are returned without a service resource resolver login
+        ResourceResolverFactory resolverFactory = Mockito.mock(ResourceResolverFactory.class);
+        Mockito.when(resolverFactory.getServiceResourceResolver(Mockito.any())).thenThrow(new LoginException());
+        Whitebox.setInternalState(factory, "resolverFactory", resolverFactory);
+        Assert.assertSame(configuration, resource.adaptTo(ComponentsConfiguration.class));
+
+        // changes in /content invalidate the context paths but not the configurations
+        factory.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, resource.getPath(), false)));
+        Whitebox.setInternalState(factory, "resolverFactory", context.getService(ResourceResolverFactory.class));
+        Assert.assertSame(configuration, resource.adaptTo(ComponentsConfiguration.class));
+    }
+
+    @Test
+    public void testContextPathsInvalidatedByConfigRefChanges() throws LoginException {
+        Resource pageH = context.resourceResolver().getResource("/content/pageH/jcr:content");
+        Resource pageD = context.resourceResolver().getResource("/content/pageD");
+        // the factory is called directly as resources cache their adapters
+        ComponentsConfiguration configurationH = factory.getAdapter(pageH, ComponentsConfiguration.class);
+        ComponentsConfiguration configurationD = factory.getAdapter(pageD, ComponentsConfiguration.class);
+
+        ResourceResolverFactory resolverFactory = Mockito.mock(ResourceResolverFactory.class);
+        Mockito.when(resolverFactory.getServiceResourceResolver(Mockito.any())).thenThrow(new LoginException());
+        Whitebox.setInternalState(factory, "resolverFactory", resolverFactory);
+
+        // changes of other properties keep the context paths
+        factory.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, pageH.getPath(), false,
+            null, Collections.singleton("jcr:title"), null)));
+        Assert.assertSame(configurationH, factory.getAdapter(pageH, ComponentsConfiguration.class));
+
+        // configuration reference changes invalidate the context paths of the page only
+        factory.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, pageH.getPath(), false,
+            null, Collections.singleton("cq:conf"), null)));
+        Assert.assertSame(configurationD, factory.getAdapter(pageD, ComponentsConfiguration.class));
+        try {
+            factory.getAdapter(pageH, ComponentsConfiguration.class);
+            Assert.fail("The context path should have been resolved again");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof LoginException);
+        }
+
+        // removals invalidate the context paths below the removed resource
+        Whitebox.setInternalState(factory, "resolverFactory", context.getService(ResourceResolverFactory.class));
+        factory.getAdapter(pageH, ComponentsConfiguration.class);
+        Whitebox.setInternalState(factory, "resolverFactory", resolverFactory);
+        factory.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/pageH", false)));
+        Assert.assertSame(configurationD, factory.getAdapter(pageD, ComponentsConfiguration.class));
+        try {
+            factory.getAdapter(pageH, ComponentsConfiguration.class);
+            Assert.fail("The context path should have been resolved again");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof LoginException);
+        }
+    }
+
     @Test
     public void testAdaptNullResource() {
         ComponentsConfiguration configuration = context.resourceResolver().adaptTo(ComponentsConfiguration.class);
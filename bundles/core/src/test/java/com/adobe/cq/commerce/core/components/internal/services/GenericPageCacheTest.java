@@ -0,0 +1,178 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.services;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.junit.After;
+import org.junit.Test;
+
+import com.day.cq.wcm.api.Page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GenericPageCacheTest {
+
+    private static final String PRODUCT_PAGE_PROPERTY = "cq:cifProductPage";
+
+    private final GenericPageCache genericPageCache = new GenericPageCache();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final Supplier<String> productPageLookup = () -> {
+        lookups.incrementAndGet();
+        return "/content/product-page";
+    };
+
+    @After
+    public void tearDown() {
+        genericPageCache.deactivate();
+    }
+
+    @Test
+    public void testCachedForResourceResolver() {
+        Page page = mockPage("/content/page", mock(ResourceResolver.class));
+
+        assertEquals("/content/product-page", genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, page, productPageLookup));
+        assertEquals("/content/product-page", genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, page, productPageLookup));
+        assertEquals(1, lookups.get());
+
+        // another resource resolver does not see the cached path without the shared cache
+        Page otherPage = mockPage("/content/page", mock(ResourceResolver.class));
+        assertEquals("/content/product-page", genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, otherPage, productPageLookup));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testNotFoundCachedForResourceResolver() {
+        Page page = mockPage("/content/page", mock(ResourceResolver.class));
+        Supplier<String> notFound = () -> {
+            lookups.incrementAndGet();
+            return null;
+        };
+
+        assertNull(genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, page, notFound));
+        assertNull(genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, page, notFound));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testSharedCacheInvalidatedByPropertyChange() {
+        genericPageCache.activate(mockConfiguration(100));
+
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        assertEquals(1, lookups.get());
+
+        // unrelated changes keep the cache
+        genericPageCache.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/content/page/jcr:content", false, null, Collections.singleton("jcr:title"), null)));
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        assertEquals(1, lookups.get());
+
+        genericPageCache.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/content/jcr:content", false, null, Collections.singleton(PRODUCT_PAGE_PROPERTY), null)));
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        assertEquals(2, lookups.get());
+
+        genericPageCache.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.REMOVED,
+            "/content/other-page", false)));
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    public void testSharedCacheKeptByComponentAndAssetChanges() {
+        genericPageCache.activate(mockConfiguration(100));
+
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        genericPageCache.onChange(Arrays.asList(
+            new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/page/jcr:content/root/teaser", false),
+            new ResourceChange(ResourceChange.ChangeType.ADDED, "/content/page/jcr:content/root/text", false),
+            new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/dam/image.jpg", false),
+            new ResourceChange(ResourceChange.ChangeType.ADDED, "/content/dam/other-image.jpg", false)));
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        assertEquals(1, lookups.get());
+
+        // changes without property names may have changed the properties of a page
+        genericPageCache.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/content/jcr:content", true)));
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, mockPage("/content/page", mock(ResourceResolver.class)),
+            productPageLookup);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testResolverCacheInvalidatedByPropertyChange() {
+        Page page = mockPage("/content/page", mock(ResourceResolver.class));
+
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, page, productPageLookup);
+        genericPageCache.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/content/jcr:content", false, null, Collections.singleton(PRODUCT_PAGE_PROPERTY), null)));
+        genericPageCache.getGenericPagePath(PRODUCT_PAGE_PROPERTY, page, productPageLookup);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testAdaptFromResourceResolver() {
+        assertSame(genericPageCache, genericPageCache.getAdapter(mock(ResourceResolver.class), GenericPageCache.class));
+        assertNull(genericPageCache.getAdapter(mock(Resource.class), GenericPageCache.class));
+    }
+
+    private static Page mockPage(String path, ResourceResolver resourceResolver) {
+        Page page = mock(Page.class);
+        Resource contentResource = mock(Resource.class);
+        when(contentResource.getResourceResolver()).thenReturn(resourceResolver);
+        when(page.getContentResource()).thenReturn(contentResource);
+        when(page.getPath()).thenReturn(path);
+        return page;
+    }
+
+    private static GenericPageCacheConfiguration mockConfiguration(int cacheSize) {
+        return new GenericPageCacheConfiguration() {
+            @Override
+            public int cacheSize() {
+                return cacheSize;
+            }
+
+            @Override
+            public int cacheTtl() {
+                return 600;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return GenericPageCacheConfiguration.class;
+            }
+        };
+    }
+}
@@ -49,4 +49,24 @@ public class MockUrlProviderConfiguration implements Annotation, UrlProviderConf
     public void setCategoryPageUrlFormat(String categoryPageUrlFormat) {
         this.categoryPageUrlFormat = categoryPageUrlFormat;
     }
+
+    @Override
+    public int identifierCacheSize() {
+        return 1000;
+    }
+
+    @Override
+    public int identifierCacheTtl() {
+        return 600;
+    }
+
+    @Override
+    public int identifierCacheMissingTtl() {
+        return 60;
+    }
+
+    @Override
+    public int identifierCacheExistsTtl() {
+        return 60;
+    }
 }
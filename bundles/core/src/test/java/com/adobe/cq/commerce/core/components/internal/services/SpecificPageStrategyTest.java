@@ -0,0 +1,104 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.services;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.adobe.cq.commerce.core.components.services.urls.UrlProvider;
+import com.adobe.cq.commerce.core.testing.TestContext;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.wcm.testing.mock.aem.junit.AemContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SpecificPageStrategyTest {
+
+    @Rule
+    public final AemContext context = TestContext.newAemContext();
+
+    private SpecificPageStrategy strategy;
+    private Resource genericPage;
+
+    @Before
+    public void setUp() {
+        strategy = context.getService(SpecificPageStrategy.class);
+        genericPage = context.create().page("/content/site/category-page").adaptTo(Resource.class);
+        context.create().page("/content/site/category-page/tops", "/conf/site/settings/wcm/templates/page", ImmutableMap.of(
+            "selectorFilter", new String[] { "MTE=|men/tops-men", "MTI=|women/tops-women" },
+            "includesSubCategories", true));
+        context.create().page("/content/site/category-page/tops/jackets", "/conf/site/settings/wcm/templates/page", ImmutableMap.of(
+            "selectorFilter", "men/tops-men/jackets-men",
+            "selectorFilterType", "urlPath"));
+        context.create().page("/content/site/category-page/pants", "/conf/site/settings/wcm/templates/page", ImmutableMap.of(
+            "selectorFilter", "men/bottoms-men"));
+    }
+
+    private String getSpecificPage(Set<String> selectors, String urlPath) {
+        Resource page = strategy.getSpecificPage(genericPage, selectors, null, Collections.singletonMap(UrlProvider.URL_PATH_PARAM,
+            urlPath));
+        return page != null ? page.getPath() : null;
+    }
+
+    @Test
+    public void testGetSpecificPage() {
+        assertEquals("/content/site/category-page/tops", getSpecificPage(ImmutableSet.of("men/tops-men"), null));
+        // descendants are matched before their ancestors
+        assertEquals("/content/site/category-page/tops/jackets", getSpecificPage(ImmutableSet.of("men/tops-men/jackets-men"),
+            "men/tops-men/jackets-men"));
+        assertEquals("/content/site/category-page/tops", getSpecificPage(ImmutableSet.of("men/tops-men/shirts-men"),
+            "men/tops-men/shirts-men"));
+        assertEquals("/content/site/category-page/pants", getSpecificPage(ImmutableSet.of("unknown", "men/bottoms-men"), null));
+        assertNull(getSpecificPage(ImmutableSet.of("men/bottoms-men/shorts-men"), "men/bottoms-men/shorts-men"));
+        assertNull(strategy.getSpecificPage(null, ImmutableSet.of("men/tops-men"), null, null));
+    }
+
+    @Test
+    public void testIndexInvalidatedOnChange() {
+        assertNull(getSpecificPage(ImmutableSet.of("men/shoes-men"), null));
+
+        Resource content = context.resourceResolver().getResource("/content/site/category-page/pants/jcr:content");
+        content.adaptTo(ModifiableValueMap.class).put("selectorFilter", "men/shoes-men");
+
+        // the index is kept until a change is reported below the generic page
+        assertNull(getSpecificPage(ImmutableSet.of("men/shoes-men"), null));
+        strategy.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/content/other-site/page/jcr:content", false)));
+        assertNull(getSpecificPage(ImmutableSet.of("men/shoes-men"), null));
+        strategy.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, content.getPath(), false)));
+        assertEquals("/content/site/category-page/pants", getSpecificPage(ImmutableSet.of("men/shoes-men"), null));
+    }
+
+    @Test
+    public void testIndexDisabled() {
+        MockOsgi.activate(strategy, context.bundleContext(), "indexSize", 0);
+        assertNull(getSpecificPage(ImmutableSet.of("men/shoes-men"), null));
+
+        Resource content = context.resourceResolver().getResource("/content/site/category-page/pants/jcr:content");
+        content.adaptTo(ModifiableValueMap.class).put("selectorFilter", "men/shoes-men");
+        assertEquals("/content/site/category-page/pants", getSpecificPage(ImmutableSet.of("men/shoes-men"), null));
+    }
+}
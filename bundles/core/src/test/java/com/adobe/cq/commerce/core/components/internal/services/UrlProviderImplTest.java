@@ -15,6 +15,9 @@
  ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
 package com.adobe.cq.commerce.core.components.internal.services;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -83,6 +86,8 @@ public class UrlProviderImplTest {
             "{products(filter:{url_key:{eq:\"beaumont-summit-kit\"}}");
         Utils.setupHttpResponse("graphql/magento-graphql-category-list-result.json", httpClient, HttpStatus.SC_OK,
             "{categoryList(filters:{category_uid:{eq:\"uid-5\"}}");
+        Utils.setupHttpResponse("graphql/magento-graphql-category-list-result.json", httpClient, HttpStatus.SC_OK,
+            "{categoryList(filters:{category_uid:{eq:\"MTI==\"}}");
         Utils.setupHttpResponse("graphql/magento-graphql-empty-data.json", httpClient, HttpStatus.SC_OK,
             "{categoryList(filters:{category_uid:{eq:\"uid-99\"}}");
         // from url_path men/tops-men/jackets-men
@@ -185,6 +190,34 @@ public class UrlProviderImplTest {
         verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
     }
 
+    @Test
+    public void testProductUrlsWithGraphQLClient() throws IOException {
+        Page page = context.currentPage("/content/product-page");
+        Utils.setupHttpResponse("graphql/magento-graphql-product-result.json", httpClient, HttpStatus.SC_OK,
+            "{products(filter:{sku:{in:[\"MJ01\",\"MJ02\"]}},pageSize:2)");
+
+        Map<String, String> urls = urlProvider.toProductUrls(request, page, Arrays.asList("MJ01", "MJ02"));
+        Assert.assertEquals(2, urls.size());
+        Assert.assertEquals("/content/product-page.html/beaumont-summit-kit.html", urls.get("MJ01"));
+        Assert.assertEquals("/content/product-page.html/{{url_key}}.html", urls.get("MJ02"));
+
+        verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testProductUrlsOnlySKU() {
+        Page page = context.currentPage("/content/product-page");
+        MockOsgi.deactivate(urlProvider, context.bundleContext());
+        MockOsgi.activate(urlProvider, context.bundleContext(), "productPageUrlFormat", ProductPageWithSku.PATTERN);
+
+        Map<String, String> urls = urlProvider.toProductUrls(request, page, Arrays.asList("MJ01", "MJ02"));
+        Assert.assertEquals("/content/product-page.html/MJ01.html", urls.get("MJ01"));
+        Assert.assertEquals("/content/product-page.html/MJ02.html", urls.get("MJ02"));
+
+        // not required when only sku is used
+        verify(graphqlClient, never()).execute(any(), any(), any(), any());
+    }
+
     @Test
     public void testProductUrlWithGraphQLClientMissingParameters() {
         Page page = context.currentPage("/content/product-page");
@@ -306,6 +339,21 @@ public class UrlProviderImplTest {
         verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
     }
 
+    @Test
+    public void testCategoryUrlsWithGraphQLClient() throws IOException {
+        Page page = context.currentPage("/content/category-page");
+        Utils.setupHttpResponse("graphql/magento-graphql-category-list-result.json", httpClient, HttpStatus.SC_OK,
+            "{categoryList(filters:{category_uid:{in:[\"uid-5\",\"uid-7\",\"uid-99\"]}}");
+
+        Map<String, String> urls = urlProvider.toCategoryUrls(request, page, Arrays.asList("uid-5", "uid-7", "uid-99"));
+        Assert.assertEquals(Arrays.asList("uid-5", "uid-7", "uid-99"), new ArrayList<>(urls.keySet()));
+        Assert.assertEquals("/content/category-page.html/equipment.html", urls.get("uid-5"));
+        Assert.assertEquals("/content/category-page.html/equipment/bike.html", urls.get("uid-7"));
+        Assert.assertEquals("/content/category-page.html/{{url_path}}.html", urls.get("uid-99"));
+
+        verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
+    }
+
     @Test
     public void testCategoryUrlNotFoundWithGraphQLClient() {
         Page page = context.currentPage("/content/category-page");
@@ -339,6 +387,50 @@ public class UrlProviderImplTest {
         verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
     }
 
+    @Test
+    public void testProductIdentifierCachedAcrossRequests() {
+        context.currentPage("/content/catalog-page");
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
+        requestPathInfo.setSuffix("/beaumont-summit-kit.html");
+
+        String identifier = urlProvider.getProductIdentifier(context.request());
+        Assert.assertEquals("MJ01", identifier);
+        // a subsequent request should use the cache shared across requests
+        context.request().removeAttribute(UrlProviderImpl.CIF_IDENTIFIER_ATTR);
+        identifier = urlProvider.getProductIdentifier(context.request());
+        Assert.assertEquals("MJ01", identifier);
+
+        verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testProductIdentifierCacheDisabled() {
+        context.currentPage("/content/catalog-page");
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
+        requestPathInfo.setSuffix("/beaumont-summit-kit.html");
+        MockOsgi.deactivate(urlProvider, context.bundleContext());
+        MockOsgi.activate(urlProvider, context.bundleContext(), "identifierCacheSize", 0);
+
+        urlProvider.getProductIdentifier(context.request());
+        context.request().removeAttribute(UrlProviderImpl.CIF_IDENTIFIER_ATTR);
+        String identifier = urlProvider.getProductIdentifier(context.request());
+        Assert.assertEquals("MJ01", identifier);
+
+        verify(graphqlClient, times(2)).execute(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testProductIdentifierWithGraphqlClientErrorNotCached() {
+        context.currentPage("/content/catalog-page");
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
+        requestPathInfo.setSuffix("/beaumont-summit-kit.html");
+
+        doThrow(new RuntimeException()).doCallRealMethod().when(graphqlClient).execute(any(), any(), any(), any());
+
+        Assert.assertNull(urlProvider.getProductIdentifier(context.request()));
+        Assert.assertEquals("MJ01", urlProvider.getProductIdentifier(context.request()));
+    }
+
     @Test
     public void testProductIdentifierParsingInSuffixUrlKeyWithGraphqlClientError() {
         MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
@@ -363,6 +455,56 @@ public class UrlProviderImplTest {
         verify(graphqlClient, never()).execute(any(), any(), any(), any());
     }
 
+    @Test
+    public void testProductExists() {
+        context.currentPage("/content/catalog-page");
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
+        UrlProviderImpl urlProviderImpl = (UrlProviderImpl) urlProvider;
+
+        // the sku of products looked up by url_key is checked as well
+        requestPathInfo.setSuffix("/beaumont-summit-kit.html");
+        Assert.assertEquals(Boolean.TRUE, urlProviderImpl.productExists(context.request()));
+        verify(graphqlClient, times(2)).execute(any(), any(), any(), any());
+
+        // existing products are cached across requests for a short time
+        MockOsgi.deactivate(urlProvider, context.bundleContext());
+        MockOsgi.activate(urlProvider, context.bundleContext(), "productPageUrlFormat", ProductPageWithSku.PATTERN,
+            "identifierCacheExistsTtl", 60);
+        for (int i = 0; i < 2; i++) {
+            context.request().removeAttribute(UrlProviderImpl.CIF_IDENTIFIER_ATTR);
+            requestPathInfo.setSuffix("/MJ01.html");
+            Assert.assertEquals(Boolean.TRUE, urlProviderImpl.productExists(context.request()));
+        }
+        verify(graphqlClient, times(3)).execute(any(), any(), any(), any());
+
+        // missing products are cached across requests
+        for (int i = 0; i < 2; i++) {
+            context.request().removeAttribute(UrlProviderImpl.CIF_IDENTIFIER_ATTR);
+            requestPathInfo.setSuffix("/MJ02.html");
+            Assert.assertEquals(Boolean.FALSE, urlProviderImpl.productExists(context.request()));
+        }
+        verify(graphqlClient, times(4)).execute(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testCategoryExists() {
+        context.currentPage("/content/catalog-page");
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
+        UrlProviderImpl urlProviderImpl = (UrlProviderImpl) urlProvider;
+
+        requestPathInfo.setSuffix("/men/tops-men/jackets-men");
+        Assert.assertEquals(Boolean.TRUE, urlProviderImpl.categoryExists(context.request()));
+        context.request().removeAttribute(UrlProviderImpl.CIF_IDENTIFIER_ATTR);
+        requestPathInfo.setSuffix("/does/not/exist");
+        Assert.assertEquals(Boolean.FALSE, urlProviderImpl.categoryExists(context.request()));
+
+        // categories that cannot be checked because of errors
+        doThrow(new RuntimeException()).when(graphqlClient).execute(any(), any(), any(), any());
+        requestPathInfo.setSuffix(null);
+        context.request().setAttribute(UrlProviderImpl.CIF_IDENTIFIER_ATTR, "uid-5");
+        Assert.assertNull(urlProviderImpl.categoryExists(context.request()));
+    }
+
     @Test
     public void testCategoryIdentifierParsingUrlPath() {
         context.currentPage("/content/catalog-page");
@@ -390,6 +532,18 @@ public class UrlProviderImplTest {
         verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
     }
 
+    @Test
+    public void testCategoryIdentifierNotFoundCachedAcrossRequests() {
+        context.currentPage("/content/catalog-page");
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) context.request().getRequestPathInfo();
+        requestPathInfo.setSuffix("/does/not/exist.html");
+
+        Assert.assertNull(urlProvider.getCategoryIdentifier(context.request()));
+        Assert.assertNull(urlProvider.getCategoryIdentifier(context.request()));
+
+        verify(graphqlClient, times(1)).execute(any(), any(), any(), any());
+    }
+
     @Test
     public void testCustomProductPageFormat() {
         Page page = context.create().page("/page");
@@ -85,7 +85,7 @@ public class ProductsSitemapGeneratorTest {
         aemContext.registerService(SitemapLinkExternalizer.class, externalizer);
         aemContext.registerInjectActivateService(new SitemapLinkExternalizerProvider());
         aemContext.registerInjectActivateService(graphqlClient);
-        aemContext.registerInjectActivateService(new ProductsSitemapGenerator(), "pageSize", 2);
+        aemContext.registerInjectActivateService(new ProductsSitemapGenerator(), "pageSize", 2, "maxPageSize", 2);
 
         aemContext.registerAdapter(Resource.class, GraphqlClient.class, graphqlClient);
         aemContext.registerAdapter(Resource.class, ComponentsConfiguration.class, ComponentsConfiguration.EMPTY);
@@ -178,6 +178,25 @@ public class ProductsSitemapGeneratorTest {
         assertEquals("2 locations added", 2, locations.getAllValues().size());
     }
 
+    @Test
+    public void testAllProductsAddedWithGrowingPageSize() throws SitemapException, IOException {
+        // given
+        ArgumentCaptor<String> locations = ArgumentCaptor.forClass(String.class);
+        aemContext.registerInjectActivateService(new ProductsSitemapGenerator(), "pageSize", 2, "maxPageSize", 4,
+            "service.ranking", 200);
+        Utils.addHttpResponseFrom(graphqlClient,
+            "graphql/sitemap/magento-graphql-sitemap-product-page-3.json",
+            "{products(search:\"\",pageSize:4,currentPage:2)");
+
+        // when
+        getSubject().generate(productPage.adaptTo(Resource.class), "<default>", sitemap, context);
+        // then
+        verify(sitemap, atLeastOnce()).addUrl(locations.capture());
+        assertEquals("5 locations added", 5, locations.getAllValues().size());
+        // the checkpoint is kept in pages of the configured page size
+        verify(context).setProperty(ProductsSitemapGenerator.PN_NEXT_PAGE, 5);
+    }
+
     @Test
     public void testOnlyProductsAllowedByFilterAdded() throws SitemapException {
         // given
@@ -20,7 +20,9 @@ import java.util.Arrays;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class UrlFormatBaseTest {
 
@@ -88,4 +90,43 @@ public class UrlFormatBaseTest {
                 Arrays.asList("top", "top/urlKey", "top/2nd/urlKey"),
                 "noKey"));
     }
+
+    @Test
+    public void testSelectUrlPathMatchesWholeSegments() {
+        assertEquals(
+            "top/urlKey",
+            UrlFormatBase.selectUrlPath(
+                null,
+                Arrays.asList("top/2nd/otherurlKey", "urlKey", "top/urlKey/", "other/urlKey"),
+                "urlKey"));
+        assertNull(UrlFormatBase.selectUrlPath(null, Arrays.asList("top/urlKey"), null));
+    }
+
+    @Test
+    public void testTemplateFormat() {
+        UrlFormatBase.Template template = UrlFormatBase.Template.compile("{{page}}.html/{{sku}}/{{url_key}}.html#{{variant_sku}}",
+            "url_key", "variant_sku");
+        assertEquals("/page.html/sku/url-key.html#variant", template.format("/page", "sku", "url-key", "variant"));
+        assertEquals("/page.html/sku.html", template.format("/page", "sku", null, ""));
+        assertEquals("{{page}}.html/{{sku}}.html", template.format(null, null, null, null));
+    }
+
+    @Test
+    public void testSuffix() {
+        UrlFormatBase.Suffix suffix = UrlFormatBase.Suffix.of("/sku/top/url-key.html");
+        assertEquals("sku/top/url-key", suffix.toString());
+        assertTrue(suffix.hasSegments());
+        assertEquals("sku", suffix.getFirstSegment());
+        assertEquals("top/url-key", suffix.getRemainder().toString());
+        assertEquals("url-key", suffix.getRemainder().getLastSegment());
+        assertEquals("url-key", suffix.getLastSegment());
+
+        suffix = UrlFormatBase.Suffix.of("/sku.html");
+        assertFalse(suffix.hasSegments());
+        assertEquals("sku", suffix.getLastSegment());
+
+        assertTrue(UrlFormatBase.Suffix.of(null).isBlank());
+        assertTrue(UrlFormatBase.Suffix.of("/.html").isBlank());
+        assertTrue(UrlFormatBase.Suffix.of("/ ").isBlank());
+    }
 }
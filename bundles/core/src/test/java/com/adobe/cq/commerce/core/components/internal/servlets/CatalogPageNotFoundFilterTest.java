@@ -25,6 +25,7 @@ import javax.servlet.ServletResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.osgi.services.HttpClientBuilderFactory;
+import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.models.factory.ModelFactory;
@@ -48,6 +49,7 @@ import com.adobe.cq.commerce.core.testing.Utils;
 import com.adobe.cq.commerce.graphql.client.GraphqlClient;
 import com.adobe.cq.commerce.graphql.client.impl.GraphqlClientImpl;
 import com.adobe.cq.sightly.SightlyWCMMode;
+import com.day.cq.wcm.api.WCMMode;
 import com.day.cq.wcm.api.policies.ContentPolicy;
 import com.day.cq.wcm.api.policies.ContentPolicyManager;
 import io.wcm.testing.mock.aem.junit.AemContext;
@@ -57,6 +59,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -75,6 +78,7 @@ public class CatalogPageNotFoundFilterTest {
     private MockSlingHttpServletResponse response;
     @Mock
     private ContentPolicy contentPolicy;
+    private CloseableHttpClient httpClient;
 
     @Before
     public void setup() throws IOException {
@@ -92,7 +96,7 @@ public class CatalogPageNotFoundFilterTest {
         aemContext.registerInjectActivateService(new SearchResultsServiceImpl());
         aemContext.registerInjectActivateService(subject);
 
-        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        httpClient = mock(CloseableHttpClient.class);
         aemContext.registerService(HttpClientBuilderFactory.class, new MockHttpClientBuilderFactory(httpClient));
 
         GraphqlClient graphqlClient = spy(new GraphqlClientImpl());
@@ -115,6 +119,8 @@ public class CatalogPageNotFoundFilterTest {
         Utils.setupHttpResponse("graphql/magento-graphql-category-list-result.json", httpClient, HttpStatus.SC_OK,
             "{categoryList(filters:{category_uid:{eq:\"MTI==\"}}");
         Utils.setupHttpResponse(null, httpClient, HttpStatus.SC_NOT_FOUND, "url_key:{eq:\"does-not-exist\"}}");
+        Utils.setupHttpResponse("graphql/magento-graphql-product-not-found-result.json", httpClient, HttpStatus.SC_OK,
+            "url_key:{eq:\"unknown-product\"}}");
     }
 
     @Test
@@ -148,7 +154,8 @@ public class CatalogPageNotFoundFilterTest {
         subject.doFilter(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verify(contentModelFinder).findProductComponentModel(any(), any());
+        verify(contentModelFinder).findProductComponentResource(any());
+        verify(contentModelFinder, never()).findProductComponentModel(any(), any());
         verify(contentModelFinder, never()).findProductListComponentModel(any(), any());
         assertEquals(200, response.getStatus());
     }
@@ -162,7 +169,8 @@ public class CatalogPageNotFoundFilterTest {
 
         verify(filterChain).doFilter(request, response);
         verify(contentModelFinder, never()).findProductComponentModel(any(), any());
-        verify(contentModelFinder).findProductListComponentModel(any(), any());
+        verify(contentModelFinder).findProductListComponentResource(any());
+        verify(contentModelFinder, never()).findProductListComponentModel(any(), any());
         assertEquals(200, response.getStatus());
     }
 
@@ -174,7 +182,7 @@ public class CatalogPageNotFoundFilterTest {
         subject.doFilter(request, response, filterChain);
 
         verify(filterChain, never()).doFilter(request, response);
-        verify(contentModelFinder).findProductComponentModel(any(), any());
+        verify(contentModelFinder, never()).findProductComponentModel(any(), any());
         verify(contentModelFinder, never()).findProductListComponentModel(any(), any());
         assertEquals(404, response.getStatus());
     }
@@ -188,13 +196,14 @@ public class CatalogPageNotFoundFilterTest {
 
         verify(filterChain, never()).doFilter(request, response);
         verify(contentModelFinder, never()).findProductComponentModel(any(), any());
-        verify(contentModelFinder).findProductListComponentModel(any(), any());
+        verify(contentModelFinder, never()).findProductListComponentModel(any(), any());
         assertEquals(404, response.getStatus());
     }
 
     @Test
     public void testReturns200ForMissingProductWithWcmModeNotDisabled() throws ServletException, IOException {
         when(wcmMode.isDisabled()).thenReturn(false);
+        WCMMode.EDIT.toRequest(request);
         aemContext.currentPage("/content/venia/us/en/products/product-page");
         ((MockRequestPathInfo) request.getRequestPathInfo()).setSuffix("/does-not-exist.html");
 
@@ -209,6 +218,7 @@ public class CatalogPageNotFoundFilterTest {
     @Test
     public void testReturns200ForMissingCategoryWithWcmModeNotDisabled() throws ServletException, IOException {
         when(wcmMode.isDisabled()).thenReturn(false);
+        WCMMode.EDIT.toRequest(request);
         aemContext.currentPage("/content/venia/us/en/products/category-page");
         ((MockRequestPathInfo) request.getRequestPathInfo()).setSuffix("/does-not-exist.html");
 
@@ -219,4 +229,39 @@ public class CatalogPageNotFoundFilterTest {
         verify(contentModelFinder).findProductListComponentModel(any(), any());
         assertEquals(200, response.getStatus());
     }
+
+    @Test
+    public void testMissingProductCached() throws Exception {
+        aemContext.currentPage("/content/venia/us/en/products/product-page");
+        ((MockRequestPathInfo) request.getRequestPathInfo()).setSuffix("/unknown-product.html");
+
+        subject.doFilter(request, response, filterChain);
+        assertEquals(404, response.getStatus());
+
+        MockSlingHttpServletRequest otherRequest = new MockSlingHttpServletRequest(aemContext.resourceResolver(), aemContext
+            .bundleContext());
+        otherRequest.setResource(request.getResource());
+        ((MockRequestPathInfo) otherRequest.getRequestPathInfo()).setSuffix("/unknown-product.html");
+        MockSlingHttpServletResponse otherResponse = new MockSlingHttpServletResponse();
+        subject.doFilter(otherRequest, otherResponse, filterChain);
+        assertEquals(404, otherResponse.getStatus());
+
+        verify(filterChain, never()).doFilter(any(), any());
+        verify(httpClient, times(1)).execute(any());
+    }
+
+    @Test
+    public void testUsesModelForSelectedProduct() throws ServletException, IOException {
+        aemContext.currentPage("/content/venia/us/en/products/product-page");
+        Resource product = aemContext.resourceResolver().getResource(
+            "/content/venia/us/en/products/product-page/jcr:content/root/responsivegrid/product");
+        product.adaptTo(ModifiableValueMap.class).put("selection", "MJ01");
+        ((MockRequestPathInfo) request.getRequestPathInfo()).setSuffix("/does-not-exist.html");
+
+        subject.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verify(contentModelFinder).findProductComponentModel(any(), any());
+        assertEquals(200, response.getStatus());
+    }
 }
@@ -0,0 +1,96 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2021 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.cq.commerce.core.components.internal.servlets;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.adobe.cq.commerce.core.components.internal.client.GraphqlCallRecorder;
+import com.adobe.cq.commerce.core.testing.TestContext;
+import io.wcm.testing.mock.aem.junit.AemContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GraphqlCallBudgetFilterTest {
+
+    @Rule
+    public final AemContext aemContext = TestContext.newAemContext();
+
+    private GraphqlCallRecorder recorder;
+
+    private final FilterChain filterChain = (request, response) -> {
+        recorder = (GraphqlCallRecorder) request.getAttribute(GraphqlCallRecorder.class.getName());
+        if (recorder != null) {
+            // the filter already started recording the request
+            assertNull(GraphqlCallRecorder.start((SlingHttpServletRequest) request));
+            recorder.record("{products{total_count}}", true, TimeUnit.MILLISECONDS.toNanos(20));
+            recorder.record("{products{total_count}}", false, 0);
+        }
+        response.getWriter().write("<html></html>");
+    };
+
+    @Test
+    public void testHeaderOnDebugRunMode() throws Exception {
+        aemContext.runMode("author");
+        GraphqlCallBudgetFilter filter = aemContext.registerInjectActivateService(new GraphqlCallBudgetFilter());
+        MockSlingHttpServletResponse response = aemContext.response();
+
+        filter.doFilter(aemContext.request(), response, filterChain);
+
+        assertEquals("queries=2;client=1;local=1;bytes=46;time=20ms", response.getHeader(GraphqlCallBudgetFilter.HEADER_NAME));
+        assertEquals(1, recorder.getClientQueries());
+    }
+
+    @Test
+    public void testCommentOnCommittedResponse() throws Exception {
+        aemContext.runMode("publish");
+        GraphqlCallBudgetFilter filter = aemContext.registerInjectActivateService(new GraphqlCallBudgetFilter(),
+            "debugRunModes", new String[] { "publish" });
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse() {
+            @Override
+            public boolean isCommitted() {
+                return true;
+            }
+        };
+        response.setContentType("text/html");
+
+        filter.doFilter(aemContext.request(), response, filterChain);
+
+        assertNull(response.getHeader(GraphqlCallBudgetFilter.HEADER_NAME));
+        assertTrue(response.getOutputAsString().endsWith("<!-- X-CIF-GraphQL-Calls: queries=2;client=1;local=1;bytes=46;time=20ms -->\n"));
+    }
+
+    @Test
+    public void testNoHeaderOnPublish() throws Exception {
+        aemContext.runMode("publish");
+        GraphqlCallBudgetFilter filter = aemContext.registerInjectActivateService(new GraphqlCallBudgetFilter(), "callBudget", 0);
+        MockSlingHttpServletResponse response = aemContext.response();
+
+        filter.doFilter(aemContext.request(), response, filterChain);
+
+        assertFalse(response.containsHeader(GraphqlCallBudgetFilter.HEADER_NAME));
+        assertNull(recorder);
+    }
+}
@@ -23,6 +23,7 @@ import javax.servlet.ServletException;
 import org.apache.sling.api.request.RequestDispatcherOptions;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.hamcrest.ResourceMatchers;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -61,8 +62,36 @@ public class SpecificPageFilterFactoryTest {
         context.request().setAttribute(WCMMode.class.getName(), WCMMode.DISABLED);
     }
 
+    @Test
+    public void testFilterRendersSpecificPage() throws IOException, ServletException {
+        context.currentResource("/content/product-page");
+        context.requestPathInfo().setSuffix("/productId1.html");
+        filter.doFilter(context.request(), null, chain);
+
+        // Check that the request is forwarded once, directly to the content of the matching sub-page
+        RequestDispatcherOptions options = new RequestDispatcherOptions();
+        options.setReplaceSelectors("productId1");
+
+        Mockito.verify(requestDispatcherFactory).getRequestDispatcher(argThat(ResourceMatchers.path(
+            "/content/product-page/sub-page/jcr:content")), eq(options));
+        Mockito.verify(requestDispatcherFactory, times(1)).getRequestDispatcher(any(Resource.class), any());
+        Mockito.verify(chain, times(0)).doFilter(context.request(), null);
+    }
+
+    @Test
+    public void testFilterRendersGenericPage() throws IOException, ServletException {
+        context.currentResource("/content/product-page");
+        context.requestPathInfo().setSuffix("/productId3.html");
+        filter.doFilter(context.request(), null, chain);
+
+        // Verify that the request is passed unchanged down the filter chain
+        Mockito.verify(requestDispatcherFactory, times(0)).getRequestDispatcher(any(Resource.class), any());
+        Mockito.verify(chain).doFilter(context.request(), null);
+    }
+
     @Test
     public void testFilterForwarding() throws IOException, ServletException {
+        MockOsgi.modified(filter, context.bundleContext(), "forwardToSpecificPage", true);
         context.currentResource("/content/product-page");
         context.requestPathInfo().setSuffix("/productId1.html");
         filter.doFilter(context.request(), null, chain);
@@ -29,7 +29,9 @@ import com.adobe.cq.commerce.magento.graphql.CategoryTreeQueryDefinition;
 import com.adobe.cq.commerce.magento.graphql.Query;
 import com.adobe.cq.commerce.magento.graphql.gson.Error;
 
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -90,4 +92,31 @@ public class AbstractCategoryRetrieverTest {
 
         verify(client, times(1)).execute(any());
     }
+
+    @Test
+    public void testPagingSubclassQueryChangesWithPage() {
+        // given
+        AbstractCategoryRetriever pagingRetriever = new PagingCategoryRetriever(client);
+
+        // when
+        String firstPage = pagingRetriever.generateQuery("uid-1");
+        pagingRetriever.setCurrentPage(2);
+        String secondPage = pagingRetriever.generateQuery("uid-1");
+
+        // then
+        assertNotEquals(firstPage, secondPage);
+        assertTrue(secondPage, secondPage.contains("currentPage:2"));
+    }
+
+    private static class PagingCategoryRetriever extends AbstractCategoryRetriever {
+
+        PagingCategoryRetriever(MagentoGraphqlClient client) {
+            super(client);
+        }
+
+        @Override
+        protected CategoryTreeQueryDefinition generateCategoryQuery() {
+            return q -> q.uid().products(args -> args.currentPage(currentPage).pageSize(pageSize), p -> p.totalCount());
+        }
+    }
 }
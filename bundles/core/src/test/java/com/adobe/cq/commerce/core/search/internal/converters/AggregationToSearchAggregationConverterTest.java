@@ -112,6 +112,26 @@ public class AggregationToSearchAggregationConverterTest {
         assertThat(result.getAppliedFilterDisplayLabel()).hasValue(AGGREGATION_OPTION_LABEL);
     }
 
+    @Test
+    public void testConvertsExpectedAggregationWithIndexedFilters() {
+        appliedFilters = new HashMap<>();
+        appliedFilters.put(AGGREGATION_CODE, AGGREGATION_OPTION_VALUE);
+        FilterAttributeMetadataImpl filterAttributeMetadata = new FilterAttributeMetadataImpl();
+        filterAttributeMetadata.setAttributeCode(AGGREGATION_CODE);
+        filterAttributeMetadata.setAttributeInputType(FilterAttributeMetadataImpl.INPUT_TYPE_SELECT);
+        Map<String, FilterAttributeMetadata> availableAttributesIndex = new HashMap<>();
+        availableAttributesIndex.put(AGGREGATION_CODE, filterAttributeMetadata);
+
+        converterUnderTest = new AggregationToSearchAggregationConverter(appliedFilters, availableAttributesIndex);
+
+        final SearchAggregation result = converterUnderTest.apply(testAggregation);
+
+        assertThat(result.getFilterable()).isTrue();
+        assertThat(result.getAppliedFilterValue()).hasValue(AGGREGATION_OPTION_VALUE);
+        assertThat(result.getAppliedFilterDisplayLabel()).hasValue(AGGREGATION_OPTION_LABEL);
+        assertThat(result.getOptions()).hasSize(1);
+    }
+
     @Test
     public void testConvertsExpectedAggregationIfSetAndBoolean() {
 
@@ -16,10 +16,13 @@
 package com.adobe.cq.commerce.core.search.internal.services;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.osgi.services.HttpClientBuilderFactory;
 import org.apache.sling.api.resource.Resource;
@@ -35,6 +38,8 @@ import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import com.adobe.cq.commerce.core.MockHttpClientBuilderFactory;
+import com.adobe.cq.commerce.core.components.internal.client.GraphqlCallRecorder;
+import com.adobe.cq.commerce.core.components.internal.client.GraphqlClientExecutor;
 import com.adobe.cq.commerce.core.components.services.ComponentsConfiguration;
 import com.adobe.cq.commerce.core.search.models.FilterAttributeMetadata;
 import com.adobe.cq.commerce.core.testing.Utils;
@@ -52,6 +57,8 @@ import io.wcm.testing.mock.aem.junit.AemContextCallback;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -133,6 +140,106 @@ public class SearchFilterServiceImplTest {
         assertThat(newAttr.getAttributeInputType()).isEqualTo("boolean");
     }
 
+    @Test
+    public void testRetrieveMetadataAsync() {
+        context.registerInjectActivateService(new GraphqlClientExecutor());
+        context.registerAdapter(Resource.class, GraphqlClient.class, (Function<Resource, GraphqlClient>) input -> input.getValueMap().get(
+            "cq:graphqlClient") != null ? graphqlClient : null);
+
+        final List<FilterAttributeMetadata> filterAttributeMetadata = searchFilterServiceUnderTest
+            .retrieveCurrentlyAvailableCommerceFiltersAsync(page).join();
+
+        assertThat(filterAttributeMetadata).hasSize(29);
+        assertThat(filterAttributeMetadata).usingFieldByFieldElementComparator()
+            .isEqualTo(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page));
+    }
+
+    @Test
+    public void testNullMagentoClientAsync() {
+        context.registerAdapter(Resource.class, GraphqlClient.class, (GraphqlClient) null);
+
+        final List<FilterAttributeMetadata> filterAttributeMetadata = searchFilterServiceUnderTest
+            .retrieveCurrentlyAvailableCommerceFiltersAsync(page).join();
+
+        assertThat(filterAttributeMetadata).isEmpty();
+    }
+
+    @Test
+    public void testCachedMetadata() throws IOException {
+        context.registerAdapter(Resource.class, GraphqlClient.class, (Function<Resource, GraphqlClient>) input -> input.getValueMap().get(
+            "cq:graphqlClient") != null ? graphqlClient : null);
+
+        List<FilterAttributeMetadata> filterAttributeMetadata = searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(
+            page);
+        assertThat(filterAttributeMetadata).hasSize(29);
+        assertThat(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page)).isSameAs(filterAttributeMetadata);
+        assertThat(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFiltersAsync(page).join()).isSameAs(
+            filterAttributeMetadata);
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+
+        // invalidating the cache fetches the filters again
+        searchFilterServiceUnderTest.invalidateCache();
+        assertThat(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page)).hasSize(29);
+        verify(httpClient, times(4)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    public void testStaleMetadataIsRefreshed() throws IOException {
+        context.registerAdapter(Resource.class, GraphqlClient.class, (Function<Resource, GraphqlClient>) input -> input.getValueMap().get(
+            "cq:graphqlClient") != null ? graphqlClient : null);
+        Clock clock = Clock.systemUTC();
+        Duration ttl = Duration.ofSeconds(SearchFilterServiceConfiguration.DEFAULT_CACHE_TTL);
+
+        List<FilterAttributeMetadata> filterAttributeMetadata = searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(
+            page);
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+
+        // after the TTL the stale entry is returned and refreshed
+        searchFilterServiceUnderTest.clock = Clock.offset(clock, ttl.plusSeconds(1));
+        assertThat(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page)).isSameAs(filterAttributeMetadata);
+        verify(httpClient, times(4)).execute(any(HttpUriRequest.class));
+        List<FilterAttributeMetadata> refreshedFilterAttributeMetadata = searchFilterServiceUnderTest
+            .retrieveCurrentlyAvailableCommerceFilters(page);
+        assertThat(refreshedFilterAttributeMetadata).hasSize(29).isNotSameAs(filterAttributeMetadata);
+        verify(httpClient, times(4)).execute(any(HttpUriRequest.class));
+
+        // after twice the TTL the entry is not used anymore
+        searchFilterServiceUnderTest.clock = Clock.offset(clock, ttl.multipliedBy(3).plusSeconds(2));
+        assertThat(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page)).hasSize(29).isNotSameAs(
+            refreshedFilterAttributeMetadata);
+        verify(httpClient, times(6)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    public void testStaleMetadataRefreshedWithoutRequest() throws IOException {
+        context.registerAdapter(Resource.class, GraphqlClient.class, (Function<Resource, GraphqlClient>) input -> input.getValueMap().get(
+            "cq:graphqlClient") != null ? graphqlClient : null);
+        context.currentResource(pageResource);
+        GraphqlCallRecorder recorder = GraphqlCallRecorder.start(context.request());
+        Clock clock = Clock.systemUTC();
+        Duration ttl = Duration.ofSeconds(SearchFilterServiceConfiguration.DEFAULT_CACHE_TTL);
+
+        List<FilterAttributeMetadata> filterAttributeMetadata = searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(
+            page);
+        searchFilterServiceUnderTest.clock = Clock.offset(clock, ttl.plusSeconds(1));
+        assertThat(searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page)).isSameAs(filterAttributeMetadata);
+        verify(httpClient, times(4)).execute(any(HttpUriRequest.class));
+
+        // neither the initial fetch nor the background refresh are bound to the current request
+        assertThat(recorder.getQueries()).isZero();
+    }
+
+    @Test
+    public void testCacheDisabled() throws IOException {
+        context.registerAdapter(Resource.class, GraphqlClient.class, (Function<Resource, GraphqlClient>) input -> input.getValueMap().get(
+            "cq:graphqlClient") != null ? graphqlClient : null);
+        searchFilterServiceUnderTest = context.registerInjectActivateService(new SearchFilterServiceImpl(), "cacheTtl", 0);
+
+        searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page);
+        searchFilterServiceUnderTest.retrieveCurrentlyAvailableCommerceFilters(page);
+        verify(httpClient, times(4)).execute(any(HttpUriRequest.class));
+    }
+
     @Test
     public void testFilterQueriesReturnNull() {
         // We want to make sure that components will not fail if the __type and/or customAttributeMetadata fields are null
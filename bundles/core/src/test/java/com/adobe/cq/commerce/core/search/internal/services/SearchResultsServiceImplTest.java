@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -129,6 +130,9 @@ public class SearchResultsServiceImplTest {
             createRangeFilterAttributeMetadata(FILTER_ATTRIBUTE_PRICE5_CODE),
             createBooleanEqualFilterAttributeMetadata(FILTER_ATTRIBUTE_BOOLEAN_CODE),
             createUnknownAttributeMetadata()));
+        when(searchFilterService.retrieveCurrentlyAvailableCommerceFiltersAsync(any())).then(
+            inv -> CompletableFuture.completedFuture(searchFilterService.retrieveCurrentlyAvailableCommerceFilters((Page) inv
+                .getArguments()[0])));
 
         when(products.getTotalCount()).thenReturn(0);
         when(products.getItems()).thenReturn(Collections.emptyList());